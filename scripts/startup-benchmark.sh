@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Compare wall-clock time per `forge render` invocation on the JVM and as a native image.
+#
+#   mvn -Pnative package                     # builds target/classes and target/forge
+#   scripts/startup-benchmark.sh [runs]      # default 20 runs each
+#
+# Without FORGE_URL each run is a --dry-run (startup, payload build, validation and
+# serialization). With FORGE_URL set, each run also renders against that server.
+set -euo pipefail
+
+runs=${1:-20}
+cd "$(dirname "$0")/.."
+
+gson=${M2_REPO:-$HOME/.m2/repository}/com/google/code/gson/gson/2.11.0/gson-2.11.0.jar
+args=(render --html '<h1>Startup</h1><p>benchmark</p>' --paper a4 --out /dev/null)
+if [ -z "${FORGE_URL:-}" ]; then
+    args+=(--dry-run)
+fi
+
+ms_per_run() {
+    local start end
+    start=$(date +%s%N)
+    for ((i = 0; i < runs; i++)); do
+        "$@" > /dev/null
+    done
+    end=$(date +%s%N)
+    echo $(( (end - start) / runs / 1000000 ))
+}
+
+if [ ! -d target/classes ] || [ ! -f "$gson" ]; then
+    echo "build first: mvn -Pnative package (or mvn compile for the JVM figure only)" >&2
+    exit 1
+fi
+echo "jvm:    $(ms_per_run java -cp "target/classes:$gson" com.centrix.forge.ForgeCli "${args[@]}") ms/run"
+if [ -x target/forge ]; then
+    echo "native: $(ms_per_run target/forge "${args[@]}") ms/run"
+else
+    echo "native: target/forge not found; build it with mvn -Pnative package" >&2
+fi
@@ -0,0 +1,451 @@
+package com.centrix.forge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces local asset references in HTML with data URIs before rendering.
+ *
+ * <p>References in {@code src} attributes, {@code <link href>}, and CSS {@code url(...)} in
+ * {@code <style>} elements and {@code style} attributes are resolved against a base
+ * directory. Text, comments and {@code <script>} bodies are left alone. Absolute URLs
+ * ({@code http:}, {@code https:}, {@code data:}, ...) and references that cannot be read are
+ * left unchanged. Stylesheets have their own {@code url(...)} references inlined relative to
+ * the stylesheet. A leading {@code /} is relative to the base directory, and files outside it
+ * are never read. {@code classpath:} references are only honoured for resources under a
+ * classpath root given at construction.
+ *
+ * <p>An asset used by more than one CSS {@code url(...)} in a document is written once, as a
+ * {@code --forge-asset-N} custom property on {@code :root}, and referenced with {@code var()}
+ * (except inside {@code @font-face}, where {@code var()} is not allowed). HTML attributes
+ * cannot share a value, so each {@code src} still carries its own data URI; use a CSS
+ * background for images repeated many times in one document.
+ *
+ * <p>Encoded assets are cached by content hash in a size-bounded LRU, with a per-location
+ * index checked against file size and modification time (for a stylesheet, also those of the
+ * files inlined into it), so repeated renders pay a lookup instead of a read and base64
+ * encode. Within one document each distinct reference is resolved once. Share one inliner
+ * across requests; it is thread-safe.
+ */
+public class AssetInliner {
+    /** Default bound on the total size of cached data URIs. */
+    public static final long DEFAULT_MAX_CACHE_BYTES = 32L * 1024 * 1024;
+
+    private static final String CLASSPATH = "classpath:";
+    private static final Pattern MARKUP = Pattern.compile(
+            "<!--.*?-->|<(script|style)(?=[\\s/>])[^>]*>(.*?)</\\1\\s*>|<([a-zA-Z][a-zA-Z0-9-]*)\\b[^>]*>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ATTR = Pattern.compile(
+            "(?<![\\w-])(src|href|style)\\s*=\\s*([\"'])(.*?)\\2", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern FONT_FACE = Pattern.compile("@font-face\\s*\\{[^}]*\\}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_URL = Pattern.compile("url\\(\\s*([\"']?)([^\"')]+)\\1\\s*\\)");
+    private static final Pattern SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:");
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("css", "text/css");
+        MIME_TYPES.put("js", "text/javascript");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("ttf", "font/ttf");
+        MIME_TYPES.put("otf", "font/otf");
+    }
+
+    private final Path baseDir;
+    private final ClassLoader classLoader;
+    private final String classpathRoot;
+    private final long maxCacheBytes;
+    private final Map<String, Location> locations = new HashMap<>();
+    private final LinkedHashMap<String, String> encoded = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+
+    /** A resolved location and the content hash it pointed to when last read. */
+    private static class Location {
+        static final Location MISSING = new Location(-1, 0, null, Map.of());
+
+        final long size;
+        final long modified;
+        final String hash;
+        /** For a stylesheet, the files inlined into it (transitively) as they were when read. */
+        final Map<String, Location> dependencies;
+
+        Location(long size, long modified, String hash, Map<String, Location> dependencies) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /** A CSS {@code url(...)} in a document: its output position, data URI and quote character. */
+    private static class CssUrl {
+        final int position;
+        final String uri;
+        final char quote;
+        final boolean shareable;
+
+        CssUrl(int position, String uri, char quote, boolean shareable) {
+            this.position = position;
+            this.uri = uri;
+            this.quote = quote;
+            this.shareable = shareable;
+        }
+    }
+
+    /** One document being inlined: references resolved so far and CSS urls still to be written. */
+    private static class Document {
+        final StringBuilder out;
+        final Map<String, String> seen = new HashMap<>();
+        final List<CssUrl> urls = new ArrayList<>();
+        int headEnd;
+
+        Document(int length) {
+            this.out = new StringBuilder(length);
+        }
+
+        /** Write the deferred urls, sharing repeated ones through custom properties defined after {@code <head>}. */
+        String finish() {
+            Map<String, Integer> uses = new HashMap<>();
+            for (CssUrl u : urls) {
+                if (u.shareable) uses.merge(u.uri, 1, Integer::sum);
+            }
+            Map<String, String> names = new LinkedHashMap<>();
+            for (CssUrl u : urls) {
+                if (u.shareable && uses.get(u.uri) > 1 && !names.containsKey(u.uri)) {
+                    names.put(u.uri, "--forge-asset-" + (names.size() + 1));
+                }
+            }
+            StringBuilder defs = new StringBuilder();
+            if (!names.isEmpty()) {
+                defs.append("<style>:root{");
+                names.forEach((uri, name) -> defs.append(name).append(":url(\"").append(uri).append("\");"));
+                defs.append("}</style>");
+            }
+
+            StringBuilder result = new StringBuilder(out.length() + defs.length());
+            int last = 0;
+            boolean defsWritten = false;
+            for (CssUrl u : urls) {
+                if (!defsWritten && headEnd <= u.position) {
+                    result.append(out, last, headEnd).append(defs);
+                    last = headEnd;
+                    defsWritten = true;
+                }
+                result.append(out, last, u.position);
+                String name = u.shareable ? names.get(u.uri) : null;
+                if (name != null) {
+                    result.append("var(").append(name).append(')');
+                } else {
+                    result.append("url(").append(u.quote).append(u.uri).append(u.quote).append(')');
+                }
+                last = u.position;
+            }
+            if (!defsWritten) {
+                result.append(out, last, headEnd).append(defs);
+                last = headEnd;
+            }
+            return result.append(out, last, out.length()).toString();
+        }
+    }
+
+    /** Resolve relative references against {@code baseDir}, with the default cache bound. */
+    public AssetInliner(Path baseDir) {
+        this(baseDir, DEFAULT_MAX_CACHE_BYTES);
+    }
+
+    /** Resolve relative references against {@code baseDir}, caching up to {@code maxCacheBytes} of data URIs. */
+    public AssetInliner(Path baseDir, long maxCacheBytes) {
+        this(baseDir, maxCacheBytes, null);
+    }
+
+    /**
+     * Like {@link #AssetInliner(Path, long)}, and also inline {@code classpath:} references to
+     * resources under {@code classpathRoot} (e.g. {@code "templates/"}); others are left unchanged.
+     */
+    public AssetInliner(Path baseDir, long maxCacheBytes, String classpathRoot) {
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        this.classLoader = AssetInliner.class.getClassLoader();
+        this.maxCacheBytes = maxCacheBytes;
+        if (classpathRoot != null) {
+            String root = classpathRoot.startsWith("/") ? classpathRoot.substring(1) : classpathRoot;
+            classpathRoot = root.isEmpty() || root.endsWith("/") ? root : root + "/";
+        }
+        this.classpathRoot = classpathRoot;
+    }
+
+    /** Return {@code html} with local asset references replaced by data URIs. */
+    public String inline(String html) {
+        Document doc = new Document(html.length());
+        Matcher m = MARKUP.matcher(html);
+        int last = 0;
+        while (m.find()) {
+            doc.out.append(html, last, m.start());
+            if (m.group(1) != null) {
+                tag(html.substring(m.start(), m.start(2)), m.group(1), doc);
+                if (m.group(1).equalsIgnoreCase("style")) css(m.group(2), '"', doc);
+                else doc.out.append(m.group(2));
+                doc.out.append(html, m.end(2), m.end());
+            } else if (m.group(3) != null) {
+                tag(m.group(), m.group(3), doc);
+            } else {
+                doc.out.append(m.group());
+            }
+            last = m.end();
+        }
+        doc.out.append(html, last, html.length());
+        return doc.finish();
+    }
+
+    /** Number of asset lookups served from the cache. */
+    public synchronized long getHits() { return hits; }
+
+    /** Number of asset lookups that had to read and encode the asset. */
+    public synchronized long getMisses() { return misses; }
+
+    /** Total size of the cached data URIs, in characters. */
+    public synchronized long getCachedBytes() { return cachedBytes; }
+
+    /** Append a start tag, inlining its {@code src}, {@code <link href>} and {@code style} attributes. */
+    private void tag(String tag, String name, Document doc) {
+        Matcher a = ATTR.matcher(tag);
+        int last = 0;
+        while (a.find()) {
+            String attr = a.group(1).toLowerCase(Locale.ROOT);
+            doc.out.append(tag, last, a.start(3));
+            if (attr.equals("style")) {
+                css(a.group(3), a.group(2).equals("\"") ? '\'' : '"', doc);
+            } else {
+                boolean asset = attr.equals("src") || name.equalsIgnoreCase("link");
+                String uri = asset ? resolve(a.group(3), baseDir, doc.seen, null) : null;
+                doc.out.append(uri == null ? a.group(3) : uri);
+            }
+            last = a.end(3);
+        }
+        doc.out.append(tag, last, tag.length());
+        if (name.equalsIgnoreCase("head")) doc.headEnd = doc.out.length();
+    }
+
+    /** Append document CSS, deferring each inlined {@code url(...)} to {@link Document#finish()}. */
+    private void css(String text, char quote, Document doc) {
+        List<int[]> fontFaces = new ArrayList<>();
+        Matcher f = FONT_FACE.matcher(text);
+        while (f.find()) fontFaces.add(new int[]{f.start(), f.end()});
+
+        Matcher m = CSS_URL.matcher(text);
+        int last = 0;
+        while (m.find()) {
+            doc.out.append(text, last, m.start());
+            String uri = resolve(m.group(2).trim(), baseDir, doc.seen, null);
+            if (uri == null) {
+                doc.out.append(m.group());
+            } else {
+                boolean shareable = true;
+                for (int[] range : fontFaces) {
+                    if (m.start() >= range[0] && m.start() < range[1]) shareable = false;
+                }
+                doc.urls.add(new CssUrl(doc.out.length(), uri, quote, shareable));
+            }
+            last = m.end();
+        }
+        doc.out.append(text, last, text.length());
+    }
+
+    private String replaceCssUrls(String text, Path base, Map<String, String> seen, Map<String, Location> dependencies) {
+        Matcher m = CSS_URL.matcher(text);
+        StringBuffer out = new StringBuffer(text.length());
+        while (m.find()) {
+            String uri = resolve(m.group(2).trim(), base, seen, dependencies);
+            String replacement = uri == null ? m.group() : "url(\"" + uri + "\")";
+            m.appendReplacement(out, Matcher.quoteReplacement(replacement));
+        }
+        m.appendTail(out);
+        return out.toString();
+    }
+
+    /**
+     * Return the data URI for a reference, or {@code null} to leave it unchanged. Files resolved
+     * for a stylesheet are added to its {@code dependencies}, when given.
+     */
+    private String resolve(String ref, Path base, Map<String, String> seen, Map<String, Location> dependencies) {
+        if (ref.isEmpty() || ref.startsWith("#") || ref.startsWith("//")) return null;
+        boolean classpath = ref.startsWith(CLASSPATH);
+        if (!classpath && SCHEME.matcher(ref).find()) return null;
+
+        String key;
+        if (classpath) {
+            String name = stripQuery(ref.substring(CLASSPATH.length()));
+            if (name.startsWith("/")) name = name.substring(1);
+            if (classpathRoot == null || !name.startsWith(classpathRoot)
+                    || Arrays.asList(name.split("/")).contains("..")) {
+                return null;
+            }
+            key = CLASSPATH + name;
+        } else {
+            String path = stripQuery(ref);
+            Path file = (path.startsWith("/") ? baseDir.resolve(path.substring(1)) : base.resolve(path)).normalize();
+            if (!file.startsWith(baseDir)) return null;
+            key = file.toString();
+        }
+        String uri;
+        if (seen.containsKey(key)) {
+            uri = seen.get(key);
+        } else {
+            seen.put(key, null); // stylesheets that import each other are left as references
+            uri = classpath ? fromClasspath(key.substring(CLASSPATH.length())) : fromFile(Path.of(key), seen);
+            seen.put(key, uri);
+        }
+        if (dependencies != null && !classpath) {
+            Location loc;
+            synchronized (this) {
+                loc = uri == null ? null : locations.get(key);
+            }
+            if (loc == null) {
+                dependencies.put(key, Location.MISSING);
+            } else {
+                dependencies.put(key, loc);
+                dependencies.putAll(loc.dependencies);
+            }
+        }
+        return uri;
+    }
+
+    private String fromFile(Path file, Map<String, String> seen) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) return null;
+            String key = file.toString();
+            long modified = attrs.lastModifiedTime().toMillis();
+            String cached = lookup(key, attrs.size(), modified);
+            if (cached != null) return cached;
+
+            byte[] data = Files.readAllBytes(file);
+            String mime = mimeType(file.getFileName().toString());
+            Map<String, Location> dependencies = Map.of();
+            if (mime.equals("text/css")) {
+                String css = new String(data, StandardCharsets.UTF_8);
+                dependencies = new HashMap<>();
+                data = replaceCssUrls(css, file.getParent(), seen, dependencies).getBytes(StandardCharsets.UTF_8);
+            }
+            return store(key, attrs.size(), modified, mime, data, dependencies);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String fromClasspath(String resource) {
+        String cached = lookup(CLASSPATH + resource, 0, 0);
+        if (cached != null) return cached;
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null) return null;
+            return store(CLASSPATH + resource, 0, 0, mimeType(resource), in.readAllBytes(), Map.of());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String lookup(String location, long size, long modified) {
+        Location loc;
+        synchronized (this) {
+            loc = locations.get(location);
+        }
+        if (loc == null || loc.size != size || loc.modified != modified || !unchanged(loc.dependencies)) {
+            return null;
+        }
+        synchronized (this) {
+            String uri = encoded.get(loc.hash);
+            if (uri != null) hits++;
+            return uri;
+        }
+    }
+
+    /** Whether every file inlined into a stylesheet still has the size and modification time it was read with. */
+    private static boolean unchanged(Map<String, Location> dependencies) {
+        for (Map.Entry<String, Location> dep : dependencies.entrySet()) {
+            long size = -1;
+            long modified = 0;
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(Path.of(dep.getKey()), BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    size = attrs.size();
+                    modified = attrs.lastModifiedTime().toMillis();
+                }
+            } catch (IOException e) {
+                // Gone: matches only a dependency that was missing when the stylesheet was read.
+            }
+            if (size != dep.getValue().size || modified != dep.getValue().modified) return false;
+        }
+        return true;
+    }
+
+    private String store(String location, long size, long modified, String mime, byte[] data,
+            Map<String, Location> dependencies) {
+        String hash = sha256(data);
+        synchronized (this) {
+            misses++;
+            locations.put(location, new Location(size, modified, hash, dependencies));
+            String uri = encoded.get(hash);
+            if (uri != null) return uri;
+            uri = "data:" + mime + ";base64," + Base64.getEncoder().encodeToString(data);
+            if (uri.length() > maxCacheBytes) return uri;
+            encoded.put(hash, uri);
+            cachedBytes += uri.length();
+            while (cachedBytes > maxCacheBytes) {
+                Map.Entry<String, String> eldest = encoded.entrySet().iterator().next();
+                cachedBytes -= eldest.getValue().length();
+                encoded.remove(eldest.getKey());
+            }
+            return uri;
+        }
+    }
+
+    private static String stripQuery(String ref) {
+        int cut = ref.length();
+        int q = ref.indexOf('?');
+        int h = ref.indexOf('#');
+        if (q >= 0) cut = q;
+        if (h >= 0) cut = Math.min(cut, h);
+        return ref.substring(0, cut);
+    }
+
+    private static String mimeType(String name) {
+        int dot = name.lastIndexOf('.');
+        String ext = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return MIME_TYPES.getOrDefault(ext, "application/octet-stream");
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
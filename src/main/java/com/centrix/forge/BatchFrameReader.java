@@ -0,0 +1,73 @@
+package com.centrix.forge;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+/**
+ * Demultiplexes a batch response body into individual results.
+ *
+ * <p>The body is a sequence of frames, one per item, in completion order:
+ * {@code u32 index | u16 status | u32 length | length bytes}, big-endian.
+ * A 200 frame carries the rendered output; any other status carries the
+ * item's JSON error body.
+ */
+class BatchFrameReader {
+    private final DataInputStream in;
+    private final int expected;
+    private int read;
+
+    BatchFrameReader(InputStream in, int expected) {
+        this.in = new DataInputStream(in);
+        this.expected = expected;
+    }
+
+    /** Read the next frame, or return {@code null} once every item has been received. */
+    BatchResult next() throws ForgeException {
+        if (read == expected) return null;
+        try {
+            int index = in.readInt();
+            int status = in.readUnsignedShort();
+            int length = in.readInt();
+            if (index < 0 || index >= expected || length < 0) {
+                throw new ForgeException("malformed batch frame (index " + index + ", length " + length + ")");
+            }
+            if (status != 200) {
+                // Keep only the head of an error body; skip the rest to stay in frame.
+                byte[] body = readFully(index, Math.min(length, ServerErrors.MAX_BODY_BYTES));
+                skipFully(index, length - body.length);
+                read++;
+                return new BatchResult(index, null, ServerErrors.of(status, body));
+            }
+            byte[] body = readFully(index, length);
+            read++;
+            return new BatchResult(index, new RenderResponse(body, Collections.emptyList()), null);
+        } catch (EOFException e) {
+            throw new ForgeConnectionException(new EOFException(
+                    "batch response ended after " + read + " of " + expected + " items"));
+        } catch (IOException e) {
+            throw new ForgeConnectionException(e);
+        }
+    }
+
+    private byte[] readFully(int index, int length) throws IOException {
+        byte[] body = in.readNBytes(length);
+        if (body.length != length) {
+            throw new EOFException("batch frame " + index + " truncated");
+        }
+        return body;
+    }
+
+    private void skipFully(int index, int length) throws IOException {
+        while (length > 0) {
+            int n = in.skipBytes(length);
+            if (n == 0) {
+                if (in.read() < 0) throw new EOFException("batch frame " + index + " truncated");
+                n = 1;
+            }
+            length -= n;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.centrix.forge;
+
+/** Outcome of a single item in a batch render: either a response or a per-item server error. */
+public class BatchResult {
+    private final int index;
+    private final RenderResponse response;
+    private final ForgeServerException error;
+
+    BatchResult(int index, RenderResponse response, ForgeServerException error) {
+        this.index = index;
+        this.response = response;
+        this.error = error;
+    }
+
+    /** Position of the item in the batch, in the order it was added. */
+    public int getIndex() { return index; }
+
+    /** Whether the item rendered successfully. */
+    public boolean isSuccess() { return error == null; }
+
+    /** The rendered output, or {@code null} if the item failed. */
+    public RenderResponse getResponse() { return response; }
+
+    /** The per-item server error, or {@code null} if the item succeeded. */
+    public ForgeServerException getError() { return error; }
+
+    /** Return the rendered output, or throw the per-item server error. */
+    public RenderResponse get() throws ForgeServerException {
+        if (error != null) throw error;
+        return response;
+    }
+}
@@ -0,0 +1,9 @@
+package com.centrix.forge;
+
+import java.io.IOException;
+
+/** Receives batch results one at a time as they are read off the response stream. */
+@FunctionalInterface
+public interface BatchResultHandler {
+    void onResult(BatchResult result) throws IOException;
+}
@@ -0,0 +1,110 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonObject;
+
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/** Helpers for enforcing per-request deadlines across queueing, upload and download. */
+final class Deadlines {
+    static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "forge-deadline-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Deadlines() {}
+
+    /** Time left until {@code deadline}, never negative. */
+    static Duration remaining(Instant deadline) {
+        Duration d = Duration.between(Instant.now(), deadline);
+        return d.isNegative() ? Duration.ZERO : d;
+    }
+
+    static boolean expired(Instant deadline) {
+        return deadline != null && !Instant.now().isBefore(deadline);
+    }
+
+    /** Cap the payload's server-side {@code timeout} field at the remaining budget, in whole seconds. */
+    static void applyTo(JsonObject payload, Instant deadline) {
+        if (deadline == null) return;
+        long budget = Math.max(1, remaining(deadline).getSeconds());
+        if (!payload.has("timeout") || payload.get("timeout").getAsLong() > budget) {
+            payload.addProperty("timeout", budget);
+        }
+    }
+
+    /** Wrap {@code handler} so the body download is aborted once {@code deadline} passes. */
+    static <T> HttpResponse.BodyHandler<T> bounded(HttpResponse.BodyHandler<T> handler, Instant deadline) {
+        if (deadline == null) return handler;
+        return info -> new DeadlineSubscriber<>(handler.apply(info), deadline);
+    }
+
+    /**
+     * Forwards to a delegate subscriber until the deadline, then cancels the upstream
+     * subscription (releasing the connection) and fails the delegate with an
+     * {@link HttpTimeoutException}. Signals to the delegate are serialized.
+     */
+    private static final class DeadlineSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final Instant deadline;
+        private Flow.Subscription subscription;
+        private ScheduledFuture<?> watchdog;
+        private boolean done;
+
+        DeadlineSubscriber(HttpResponse.BodySubscriber<T> delegate, Instant deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            delegate.onSubscribe(s);
+            watchdog = TIMER.schedule(this::expire, remaining(deadline).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public synchronized void onNext(List<ByteBuffer> item) {
+            if (!done) delegate.onNext(item);
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            if (finish()) delegate.onError(t);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (finish()) delegate.onComplete();
+        }
+
+        private synchronized void expire() {
+            if (!finish()) return;
+            subscription.cancel();
+            delegate.onError(new HttpTimeoutException("deadline exceeded while downloading response"));
+        }
+
+        private boolean finish() {
+            if (done) return false;
+            done = true;
+            if (watchdog != null) watchdog.cancel(false);
+            return true;
+        }
+    }
+}
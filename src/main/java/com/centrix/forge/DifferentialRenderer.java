@@ -0,0 +1,110 @@
+package com.centrix.forge;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-renders periodically refreshed content and reports only what changed.
+ *
+ * <p>The last frame and its ETag are kept per key. Each render is sent with
+ * {@code If-None-Match}; a 304 from the server short-circuits to a not-modified update.
+ * Otherwise the QOI output is decoded into the buffer freed two renders ago and compared
+ * tile by tile with the previous frame. Renders of the same key are serialized; different
+ * keys proceed in parallel.
+ *
+ * <pre>{@code
+ * DifferentialRenderer display = new DifferentialRenderer(64, 64);
+ * FrameUpdate update = display.render("lobby",
+ *         client.renderUrl(url).width(800).height(480).palette(Palette.EINK).dither(DitherMethod.ATKINSON));
+ * for (FrameUpdate.Tile tile : update.getChangedTiles()) push(tile);
+ * }</pre>
+ */
+public class DifferentialRenderer {
+    private final int tileWidth;
+    private final int tileHeight;
+    private final RasterPipeline pipeline;
+    private final ConcurrentHashMap<String, Frames> frames = new ConcurrentHashMap<>();
+
+    public DifferentialRenderer(int tileWidth, int tileHeight) {
+        this(tileWidth, tileHeight, new RasterPipeline());
+    }
+
+    /** Use {@code pipeline} (for its thread pool) to copy out changed tiles. */
+    public DifferentialRenderer(int tileWidth, int tileHeight, RasterPipeline pipeline) {
+        if (tileWidth <= 0 || tileHeight <= 0) {
+            throw new IllegalArgumentException("invalid tile size " + tileWidth + "x" + tileHeight);
+        }
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.pipeline = pipeline;
+    }
+
+    /** Render {@code request} as QOI and diff it against the last frame rendered under {@code key}. */
+    public FrameUpdate render(String key, ForgeClient.RenderRequestBuilder request) throws ForgeException {
+        Frames f = frames.computeIfAbsent(key, k -> new Frames());
+        synchronized (f) {
+            RenderResponse resp = request.format(OutputFormat.QOI)
+                    .ifNoneMatch(f.current == null ? null : f.etag)
+                    .sendResponse();
+            if (resp.isNotModified()) {
+                return new FrameUpdate(f.current, false, true, List.of());
+            }
+            PixelBuffer next;
+            try {
+                next = QoiCodec.decode(resp.getData(), f.spare);
+            } catch (IOException e) {
+                throw new ForgeException("invalid QOI output: " + e.getMessage(), e);
+            }
+            PixelBuffer prev = f.current;
+            boolean full = prev == null || prev.getWidth() != next.getWidth() || prev.getHeight() != next.getHeight();
+            List<FrameUpdate.Tile> changed = changedTiles(full ? null : prev, next);
+            f.spare = prev;
+            f.current = next;
+            f.etag = resp.getETag();
+            return new FrameUpdate(next, full, false, changed);
+        }
+    }
+
+    /** Drop the stored frame for {@code key}; its next render is a full frame. */
+    public void forget(String key) {
+        frames.remove(key);
+    }
+
+    /** Tiles of {@code next} that differ from {@code prev}, or all tiles if {@code prev} is {@code null}. */
+    private List<FrameUpdate.Tile> changedTiles(PixelBuffer prev, PixelBuffer next) {
+        int width = next.getWidth();
+        int height = next.getHeight();
+        List<FrameUpdate.Tile> changed = new ArrayList<>();
+        for (int y = 0; y < height; y += tileHeight) {
+            int h = Math.min(tileHeight, height - y);
+            for (int x = 0; x < width; x += tileWidth) {
+                int w = Math.min(tileWidth, width - x);
+                if (prev == null || differs(prev, next, x, y, w, h)) {
+                    changed.add(new FrameUpdate.Tile(x, y, pipeline.crop(x, y, w, h).apply(next, null)));
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean differs(PixelBuffer a, PixelBuffer b, int x, int y, int w, int h) {
+        int[] pa = a.getPixels();
+        int[] pb = b.getPixels();
+        int stride = a.getWidth();
+        for (int row = y; row < y + h; row++) {
+            int from = row * stride + x;
+            if (Arrays.mismatch(pa, from, from + w, pb, from, from + w) >= 0) return true;
+        }
+        return false;
+    }
+
+    /** Last frame, its ETag, and the buffer it replaced (reused for the next decode). */
+    private static final class Frames {
+        PixelBuffer current;
+        PixelBuffer spare;
+        String etag;
+    }
+}
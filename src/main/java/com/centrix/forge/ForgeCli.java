@@ -0,0 +1,132 @@
+package com.centrix.forge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Command-line entry point for one-off renders, built as the {@code forge} native executable
+ * by the {@code native} Maven profile.
+ *
+ * <pre>
+ * forge render --url https://example.com --format png --width 1280 --out page.png
+ * forge render --html-file invoice.html --paper a4 &gt; invoice.pdf
+ * forge render --html '&lt;h1&gt;Hi&lt;/h1&gt;' --dry-run
+ * forge health
+ * </pre>
+ *
+ * <p>The server defaults to {@code $FORGE_URL}, then {@code http://localhost:3000}. Exit codes:
+ * 0 on success, 1 when the render or health check fails, 2 on a usage error.
+ */
+public final class ForgeCli {
+    static final String USAGE = "usage: forge render (--html TEXT | --html-file PATH|- | --url URL) [--server URL]\n"
+            + "                    [--format pdf|png|jpeg|bmp|tga|qoi|svg] [--width PX] [--height PX]\n"
+            + "                    [--paper SIZE] [--orientation portrait|landscape] [--density DPI]\n"
+            + "                    [--timeout S] [--deadline S] [--out PATH] [--dry-run]\n"
+            + "       forge health [--server URL]";
+
+    private ForgeCli() {}
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /** Run a command, writing output to {@code stdout}, and return the exit code. */
+    static int run(String[] args, InputStream stdin, OutputStream stdout, PrintStream stderr) {
+        if (args.length == 0 || args[0].equals("--help")) {
+            stderr.println(USAGE);
+            return args.length == 0 ? 2 : 0;
+        }
+        String server = System.getenv("FORGE_URL") != null ? System.getenv("FORGE_URL") : "http://localhost:3000";
+        String html = null, url = null, out = null;
+        boolean dryRun = false;
+        ForgeClient.RenderRequestBuilder request;
+        try {
+            // First pass: where to send and what to render.
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--server": server = value(args, ++i); break;
+                    case "--html": html = value(args, ++i); break;
+                    case "--html-file": html = readHtml(value(args, ++i), stdin); break;
+                    case "--url": url = value(args, ++i); break;
+                    case "--out": out = value(args, ++i); break;
+                    case "--dry-run": dryRun = true; break;
+                    default: if (args[i].startsWith("--")) i++;
+                }
+            }
+            ForgeClient client = new ForgeClient(server);
+            if (args[0].equals("health")) {
+                boolean healthy = client.health();
+                stderr.println(healthy ? "ok" : "unhealthy: " + server);
+                return healthy ? 0 : 1;
+            }
+            if (!args[0].equals("render")) throw new IllegalArgumentException("unknown command: " + args[0]);
+            if ((html == null) == (url == null)) throw new IllegalArgumentException("give exactly one of --html, --html-file, --url");
+
+            request = html != null ? client.renderHtml(html) : client.renderUrl(url);
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format": request.format(OutputFormat.valueOf(upper(value(args, ++i)))); break;
+                    case "--width": request.width(Integer.parseInt(value(args, ++i))); break;
+                    case "--height": request.height(Integer.parseInt(value(args, ++i))); break;
+                    case "--paper": request.paper(value(args, ++i)); break;
+                    case "--orientation": request.orientation(Orientation.valueOf(upper(value(args, ++i)))); break;
+                    case "--density": request.density(Double.parseDouble(value(args, ++i))); break;
+                    case "--timeout": request.timeout(Integer.parseInt(value(args, ++i))); break;
+                    case "--deadline": request.deadline(Duration.ofSeconds(Long.parseLong(value(args, ++i)))); break;
+                    case "--server": case "--html": case "--html-file": case "--url": case "--out": i++; break;
+                    case "--dry-run": break;
+                    default: throw new IllegalArgumentException("unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            stderr.println("forge: " + e.getMessage());
+            stderr.println(USAGE);
+            return 2;
+        }
+
+        try {
+            if (dryRun) {
+                request.validate();
+                stdout.write(JsonOutput.toBytes(request.buildPayload(), '\n'));
+                stdout.flush();
+                return 0;
+            }
+            byte[] data = request.send();
+            if (out == null) {
+                stdout.write(data);
+                stdout.flush();
+            } else {
+                Files.write(Paths.get(out), data);
+            }
+            return 0;
+        } catch (ForgeValidationException e) {
+            for (String problem : e.getProblems()) stderr.println("forge: " + problem);
+            return 2;
+        } catch (ForgeException | IOException e) {
+            stderr.println("forge: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        return args[i];
+    }
+
+    private static String readHtml(String path, InputStream stdin) throws IOException {
+        byte[] bytes = path.equals("-") ? stdin.readAllBytes() : Files.readAllBytes(Path.of(path));
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String upper(String s) {
+        return s.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+}
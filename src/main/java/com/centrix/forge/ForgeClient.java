@@ -1,40 +1,134 @@
 package com.centrix.forge;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /** Client for a Forge rendering server. */
 public class ForgeClient {
     private final String baseUrl;
     private final HttpClient httpClient;
-    private static final Gson GSON = new Gson();
+    private final RenderScheduler scheduler;
+    private final boolean validateRequests;
+    private final long maxPayloadBytes;
+    private final AssetInliner assetInliner;
+    private final RenderStats statistics;
+    private final Duration connectTimeout;
+    private final boolean gateway;
+    private final boolean idempotencyKeys;
+    private volatile WarmUpResult warmUpResult;
 
     public ForgeClient(String baseUrl) {
         this(baseUrl, Duration.ofSeconds(120));
     }
 
     public ForgeClient(String baseUrl, Duration timeout) {
-        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this(builder(baseUrl).timeout(timeout));
+    }
+
+    private ForgeClient(Builder b) {
+        this.baseUrl = b.baseUrl.replaceAll("/+$", "");
         this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(timeout)
+                .connectTimeout(b.timeout)
                 .build();
+        this.scheduler = b.scheduler;
+        this.validateRequests = b.validateRequests;
+        this.maxPayloadBytes = b.maxPayloadBytes;
+        this.assetInliner = b.assetInliner;
+        this.statistics = b.statistics;
+        this.connectTimeout = b.timeout;
+        this.gateway = b.gateway;
+        this.idempotencyKeys = b.idempotencyKeys != null ? b.idempotencyKeys : b.gateway;
+    }
+
+    /** Start configuring a client for the server at {@code baseUrl}. */
+    public static Builder builder(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    /** Builder for a {@link ForgeClient}. */
+    public static class Builder {
+        private final String baseUrl;
+        private Duration timeout = Duration.ofSeconds(120);
+        private RenderScheduler scheduler;
+        private boolean validateRequests = true;
+        private long maxPayloadBytes = Long.MAX_VALUE;
+        private AssetInliner assetInliner;
+        private RenderStats statistics;
+        private int warmUpConnections;
+        private boolean gateway;
+        private Boolean idempotencyKeys;
+
+        Builder(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        /** Connect timeout (default: 120s). */
+        public Builder timeout(Duration timeout) { this.timeout = timeout; return this; }
+
+        /** Route every request through {@code scheduler} for concurrency limiting and prioritization. */
+        public Builder scheduler(RenderScheduler scheduler) { this.scheduler = scheduler; return this; }
+
+        /** Run {@link RenderRequestBuilder#validate()} before every send (default: true). */
+        public Builder validateRequests(boolean validate) { this.validateRequests = validate; return this; }
+
+        /** Reject requests whose JSON body would exceed {@code bytes} before uploading them. */
+        public Builder maxPayloadBytes(long bytes) { this.maxPayloadBytes = bytes; return this; }
+
+        /** Inline local assets referenced by {@link ForgeClient#renderHtml(String)} input as data URIs. */
+        public Builder assetInliner(AssetInliner inliner) { this.assetInliner = inliner; return this; }
+
+        /** Record latency and byte counts for every render into {@code stats}. */
+        public Builder statistics(RenderStats stats) { this.statistics = stats; return this; }
+
+        /** Run {@link ForgeClient#warmUp(int)} with {@code connections} before {@link #build()} returns. */
+        public Builder warmUp(int connections) { this.warmUpConnections = connections; return this; }
+
+        /** The base URL is a {@link RenderGateway}: forward each request's priority, tenant and deadline
+         *  so the gateway's shared scheduler can apply them. */
+        public Builder gateway() { this.gateway = true; return this; }
+
+        /** Send each HTML render's {@link RenderRequestBuilder#payloadDigest()} as an {@code Idempotency-Key}
+         *  header (default: only in {@link #gateway()} mode, where it keys the gateway's cache).
+         *  URL renders never carry one: the page behind the URL can change while the payload does not. */
+        public Builder idempotencyKeys(boolean enabled) { this.idempotencyKeys = enabled; return this; }
+
+        public ForgeClient build() {
+            ForgeClient client = new ForgeClient(this);
+            if (warmUpConnections > 0) client.warmUp(warmUpConnections);
+            return client;
+        }
     }
 
-    /** Start a render request from an HTML string. */
+    /** Start a render request from an HTML string. Local assets are inlined first if the client
+     *  has an {@link AssetInliner}. */
     public RenderRequestBuilder renderHtml(String html) {
+        if (assetInliner != null && html != null) html = assetInliner.inline(html);
         return new RenderRequestBuilder(this, html, null);
     }
 
@@ -43,6 +137,11 @@ public class ForgeClient {
         return new RenderRequestBuilder(this, null, url);
     }
 
+    /** Start a batch of render requests that is submitted in a single HTTP round trip. */
+    public BatchRequestBuilder batch() {
+        return new BatchRequestBuilder(this);
+    }
+
     /** Check if the server is healthy. */
     public boolean health() {
         HttpRequest req = HttpRequest.newBuilder()
@@ -57,71 +156,380 @@ public class ForgeClient {
         }
     }
 
-    byte[] send(JsonObject payload) throws ForgeException {
-        String body = GSON.toJson(payload);
-
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + "/render"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body))
-                .build();
+    /**
+     * Prepare the client for traffic: load and exercise the payload building, serialization
+     * and error-decoding paths, then open {@code connections} pooled connections by issuing
+     * that many concurrent {@code /health} requests. Over HTTP/2 the requests share one
+     * connection, so only one is opened.
+     */
+    public WarmUpResult warmUp(int connections) {
+        long start = System.nanoTime();
+        primeSerialization();
 
-        HttpResponse<byte[]> resp;
-        try {
-            resp = httpClient.send(req, HttpResponse.BodyHandlers.ofByteArray());
-        } catch (IOException | InterruptedException e) {
-            throw new ForgeConnectionException(e);
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/health"))
+                    .timeout(connectTimeout)
+                    .GET()
+                    .build();
+            checks.add(httpClient.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .handle((resp, err) -> err == null && resp.statusCode() == 200));
+        }
+        int opened = 0;
+        for (CompletableFuture<Boolean> check : checks) {
+            if (check.join()) opened++;
         }
 
-        if (resp.statusCode() != 200) {
-            String message;
+        WarmUpResult result = new WarmUpResult(connections, opened, Duration.ofNanos(System.nanoTime() - start));
+        warmUpResult = result;
+        return result;
+    }
+
+    /** Result of the most recent {@link #warmUp(int)}, or {@code null} if the client was never warmed up. */
+    public WarmUpResult getWarmUpResult() {
+        return warmUpResult;
+    }
+
+    private void primeSerialization() {
+        JsonObject payload = new RenderRequestBuilder(this, "<p>warm-up</p>", null)
+                .paper("a4")
+                .margins("10,10,10,10")
+                .pdfTitle("warm-up")
+                .pdfBarcode(BarcodeType.QR, "warm-up")
+                .buildPayload();
+        PayloadSize.of(payload);
+        serialize(payload);
+        ServerErrors.of(500, "{\"error\":\"warm-up\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    byte[] send(JsonObject payload, SendOptions options) throws ForgeException {
+        return sendWithResponse(payload, options).getData();
+    }
+
+    RenderResponse sendWithResponse(JsonObject payload, SendOptions options) throws ForgeException {
+        String statsKey = statistics == null ? null : statistics.keyFor(payload);
+        RenderScheduler.Permit permit = acquire(options);
+        long start = System.nanoTime();
+        byte[] body = new byte[0];
+        RenderResponse result = null;
+        try {
+            HttpResponse<byte[]> resp;
             try {
-                JsonObject errBody = JsonParser.parseString(new String(resp.body()))
-                        .getAsJsonObject();
-                message = errBody.get("error").getAsString();
-            } catch (Exception e) {
-                message = "HTTP " + resp.statusCode();
+                String idempotencyKey = idempotencyKey(payload, options);
+                Deadlines.applyTo(payload, options.deadline);
+                body = serialize(payload);
+                HttpRequest req = renderRequest(body, idempotencyKey, options);
+                resp = httpClient.send(req, renderBodyHandler(options.deadline));
+            } catch (IOException | InterruptedException e) {
+                if (Deadlines.expired(options.deadline)) throw new ForgeTimeoutException("while rendering");
+                throw new ForgeConnectionException(e);
+            } finally {
+                if (permit != null) permit.close();
             }
-            throw new ForgeServerException(resp.statusCode(), message);
+
+            result = toRenderResponse(resp);
+            return result;
+        } finally {
+            record(statsKey, start, body.length, result);
         }
+    }
+
+    CompletableFuture<RenderResponse> sendAsync(JsonObject payload, SendOptions options) {
+        String statsKey = statistics == null ? null : statistics.keyFor(payload);
+        long[] exchangeStartAndSize = new long[2];
+        CompletableFuture<RenderScheduler.Permit> admitted = scheduler == null
+                ? CompletableFuture.completedFuture(null)
+                : scheduler.acquireAsync(options.priority, options.tenant);
+        if (options.deadline != null && !admitted.isDone()) {
+            // Withdraw from the queue if no slot is granted in time; a no-op once granted.
+            Deadlines.TIMER.schedule(() -> admitted.cancel(false),
+                    Deadlines.remaining(options.deadline).toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return admitted.thenCompose(permit -> {
+                    CompletableFuture<HttpResponse<byte[]>> exchange;
+                    try {
+                        exchangeStartAndSize[0] = System.nanoTime();
+                        String idempotencyKey = idempotencyKey(payload, options);
+                        Deadlines.applyTo(payload, options.deadline);
+                        byte[] body = serialize(payload);
+                        exchangeStartAndSize[1] = body.length;
+                        HttpRequest req = renderRequest(body, idempotencyKey, options);
+                        exchange = httpClient.sendAsync(req, renderBodyHandler(options.deadline));
+                    } catch (ForgeTimeoutException | RuntimeException e) {
+                        // e.g. a non-finite double the serializer rejects; the permit is released below.
+                        exchange = CompletableFuture.failedFuture(e);
+                    }
+                    return exchange.whenComplete((resp, err) -> {
+                        if (permit != null) permit.close();
+                    });
+                })
+                .handle((resp, err) -> {
+                    if (exchangeStartAndSize[0] != 0) {
+                        RenderResponse result = null;
+                        if (err == null && (resp.statusCode() == 200 || resp.statusCode() == 304)) {
+                            result = new RenderResponse(resp.body(), Collections.emptyList());
+                        }
+                        record(statsKey, exchangeStartAndSize[0], exchangeStartAndSize[1], result);
+                    }
+                    if (err != null) {
+                        Throwable cause = err instanceof CompletionException ? err.getCause() : err;
+                        if (cause instanceof ForgeException || cause instanceof IllegalArgumentException) {
+                            throw new CompletionException(cause);
+                        }
+                        if (cause instanceof CancellationException && Deadlines.expired(options.deadline)) {
+                            throw new CompletionException(new ForgeTimeoutException("while waiting for a scheduler slot"));
+                        }
+                        if (Deadlines.expired(options.deadline)) {
+                            throw new CompletionException(new ForgeTimeoutException("while rendering"));
+                        }
+                        throw new CompletionException(new ForgeConnectionException(cause));
+                    }
+                    try {
+                        return toRenderResponse(resp);
+                    } catch (ForgeServerException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
 
-        return resp.body();
+    private static byte[] serialize(JsonObject payload) {
+        return JsonOutput.toBytes(payload);
     }
 
-    RenderResponse sendWithResponse(JsonObject payload) throws ForgeException {
-        String body = GSON.toJson(payload);
+    /** Canonical payload digest, taken before the deadline adjusts {@code timeout} so retries share it. */
+    private String idempotencyKey(JsonObject payload, SendOptions options) {
+        if (options.idempotencyKey != null) return options.idempotencyKey;
+        return idempotencyKeys && !payload.has("url") ? PayloadDigest.hex(payload) : null;
+    }
 
-        HttpRequest req = HttpRequest.newBuilder()
+    private HttpRequest renderRequest(byte[] body, String idempotencyKey, SendOptions options) throws ForgeTimeoutException {
+        HttpRequest.Builder req = HttpRequest.newBuilder()
                 .uri(URI.create(baseUrl + "/render"))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(body))
-                .build();
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (idempotencyKey != null) req.header("Idempotency-Key", idempotencyKey);
+        if (options.ifNoneMatch != null) req.header("If-None-Match", options.ifNoneMatch);
+        return withDeadline(forwardOptions(req, options), options.deadline).build();
+    }
+
+    /** In gateway mode, pass the client-side scheduling options on as headers. */
+    private HttpRequest.Builder forwardOptions(HttpRequest.Builder req, SendOptions options) {
+        if (!gateway) return req;
+        req.header(RenderGateway.PRIORITY_HEADER, options.priority.name());
+        if (options.tenant != null) req.header(RenderGateway.TENANT_HEADER, options.tenant);
+        if (options.deadline != null) req.header(RenderGateway.DEADLINE_HEADER, options.deadline.toString());
+        return req;
+    }
+
+    /** Read a render's output in full, but only the head of an error body, within the deadline. */
+    private static HttpResponse.BodyHandler<byte[]> renderBodyHandler(Instant deadline) {
+        return Deadlines.bounded(ServerErrors.capped(HttpResponse.BodyHandlers.ofByteArray()), deadline);
+    }
+
+    private void record(String statsKey, long start, long bytesSent, RenderResponse result) {
+        if (statsKey == null) return;
+        long elapsed = System.nanoTime() - start;
+        if (result != null) {
+            statistics.recordSuccess(statsKey, elapsed, bytesSent, result.getData().length);
+        } else {
+            statistics.recordError(statsKey, elapsed, bytesSent);
+        }
+    }
+
+    /** Bound connect, upload and time-to-headers by the remaining budget. */
+    private static HttpRequest.Builder withDeadline(HttpRequest.Builder req, Instant deadline) throws ForgeTimeoutException {
+        if (deadline == null) return req;
+        Duration remaining = Deadlines.remaining(deadline);
+        if (remaining.isZero()) throw new ForgeTimeoutException("before sending");
+        return req.timeout(remaining);
+    }
+
+    private static RenderResponse toRenderResponse(HttpResponse<byte[]> resp) throws ForgeServerException {
+        String etag = resp.headers().firstValue("ETag").orElse(null);
+        if (resp.statusCode() == 304) {
+            return RenderResponse.notModified(etag);
+        }
+        if (resp.statusCode() != 200) {
+            throw ServerErrors.of(resp);
+        }
 
-        HttpResponse<byte[]> resp;
+        List<String> warnings = resp.headers().allValues("X-Forge-Warning");
+        return new RenderResponse(resp.body(), warnings, etag);
+    }
+
+    /** Wait for a scheduler slot, or return {@code null} when the client is unscheduled. */
+    private RenderScheduler.Permit acquire(SendOptions options) throws ForgeException {
+        if (scheduler == null) return null;
         try {
-            resp = httpClient.send(req, HttpResponse.BodyHandlers.ofByteArray());
+            if (options.deadline == null) {
+                return scheduler.acquire(options.priority, options.tenant);
+            }
+            return scheduler.acquire(options.priority, options.tenant, Deadlines.remaining(options.deadline));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ForgeConnectionException(e);
+        } catch (TimeoutException e) {
+            throw new ForgeTimeoutException("while waiting for a scheduler slot");
+        }
+    }
+
+    void sendBatch(List<JsonObject> payloads, SendOptions options, BatchResultHandler handler)
+            throws ForgeException, IOException {
+        if (payloads.isEmpty()) return;
+
+        String[] statsKeys = statistics == null ? null : new String[payloads.size()];
+        long[] lineBytes = new long[payloads.size()];
+
+        // One NDJSON line per payload, serialized lazily as the body is written.
+        Iterable<byte[]> lines = () -> new Iterator<byte[]>() {
+            private final Iterator<JsonObject> it = payloads.iterator();
+            private int index;
+
+            @Override
+            public boolean hasNext() { return it.hasNext(); }
+
+            @Override
+            public byte[] next() {
+                JsonObject payload = it.next();
+                if (statsKeys != null) statsKeys[index] = statistics.keyFor(payload);
+                if (options.deadline != null) {
+                    // The batch builder keeps its payloads for re-sending; cap a copy's timeout.
+                    payload = payload.deepCopy();
+                    Deadlines.applyTo(payload, options.deadline);
+                }
+                byte[] line = JsonOutput.toBytes(payload, '\n');
+                lineBytes[index++] = line.length;
+                return line;
+            }
+        };
+
+        RenderScheduler.Permit permit = acquire(options);
+        long start = System.nanoTime();
+        boolean[] received = new boolean[payloads.size()];
+        try {
+            exchangeBatch(payloads.size(), lines, options, permit, result -> {
+                received[result.getIndex()] = true;
+                if (statsKeys != null) {
+                    int i = result.getIndex();
+                    record(statsKeys[i], start, lineBytes[i], result.getResponse());
+                }
+                handler.onResult(result);
+            });
+        } finally {
+            if (statsKeys != null) {
+                for (int i = 0; i < received.length; i++) {
+                    if (!received[i] && statsKeys[i] != null) record(statsKeys[i], start, lineBytes[i], null);
+                }
+            }
+        }
+    }
+
+    private void exchangeBatch(int items, Iterable<byte[]> lines, SendOptions options,
+            RenderScheduler.Permit permit, BatchResultHandler handler) throws ForgeException, IOException {
+        HttpResponse<InputStream> resp;
+        try {
+            HttpRequest.Builder req = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/render/batch"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .header("Accept", "application/x-forge-batch")
+                    .POST(HttpRequest.BodyPublishers.ofByteArrays(lines));
+            resp = httpClient.send(withDeadline(forwardOptions(req, options), options.deadline).build(),
+                    Deadlines.bounded(HttpResponse.BodyHandlers.ofInputStream(), options.deadline));
+        } catch (ForgeTimeoutException e) {
+            if (permit != null) permit.close();
+            throw e;
         } catch (IOException | InterruptedException e) {
+            if (permit != null) permit.close();
+            if (Deadlines.expired(options.deadline)) throw new ForgeTimeoutException("while rendering");
             throw new ForgeConnectionException(e);
         }
 
-        if (resp.statusCode() != 200) {
-            String message;
+        try (InputStream in = resp.body()) {
+            if (resp.statusCode() != 200) {
+                throw ServerErrors.of(resp.statusCode(), resp.headers(), in);
+            }
+            BatchFrameReader reader = new BatchFrameReader(in, items);
+            BatchResult result;
+            while ((result = next(reader, options.deadline)) != null) {
+                handler.onResult(result);
+            }
+        } finally {
+            if (permit != null) permit.close();
+        }
+    }
+
+    private static BatchResult next(BatchFrameReader reader, Instant deadline) throws ForgeException {
+        try {
+            return reader.next();
+        } catch (ForgeConnectionException e) {
+            if (Deadlines.expired(deadline)) throw new ForgeTimeoutException("while reading batch results");
+            throw e;
+        }
+    }
+
+    /** Builder for a batch of render requests sent in one HTTP round trip. */
+    public static class BatchRequestBuilder {
+        private final ForgeClient client;
+        private final List<JsonObject> payloads = new ArrayList<>();
+        private Priority priority = Priority.BULK;
+        private String tenant;
+        private Instant deadline;
+
+        BatchRequestBuilder(ForgeClient client) {
+            this.client = client;
+        }
+
+        /** Scheduling class for the batch request (default: {@code BULK}). */
+        public BatchRequestBuilder priority(Priority p) { this.priority = p; return this; }
+
+        /** Tenant key used for fair queuing when the client has a scheduler. */
+        public BatchRequestBuilder tenant(String key) { this.tenant = key; return this; }
+
+        /** Absolute deadline for the whole batch, including queueing and reading every result. */
+        public BatchRequestBuilder deadline(Instant at) { this.deadline = at; return this; }
+
+        /** Deadline {@code budget} from now. */
+        public BatchRequestBuilder deadline(Duration budget) { return deadline(Instant.now().plus(budget)); }
+
+        private SendOptions sendOptions() {
+            return new SendOptions(priority, tenant, deadline);
+        }
+
+        /** Add a render request; its payload is validated and captured at the time of the call. */
+        public BatchRequestBuilder add(RenderRequestBuilder request) throws ForgeValidationException {
+            payloads.add(request.preparePayload());
+            return this;
+        }
+
+        /** Number of requests added so far. */
+        public int size() { return payloads.size(); }
+
+        /** Send the batch and return one result per request, in the order they were added. */
+        public List<BatchResult> send() throws ForgeException {
+            BatchResult[] results = new BatchResult[payloads.size()];
             try {
-                JsonObject errBody = JsonParser.parseString(new String(resp.body()))
-                        .getAsJsonObject();
-                message = errBody.get("error").getAsString();
-            } catch (Exception e) {
-                message = "HTTP " + resp.statusCode();
+                client.sendBatch(payloads, sendOptions(), r -> results[r.getIndex()] = r);
+            } catch (IOException e) {
+                throw new ForgeConnectionException(e);
             }
-            throw new ForgeServerException(resp.statusCode(), message);
+            return Arrays.asList(results);
         }
 
-        List<String> warnings = resp.headers().allValues("X-Forge-Warning");
-        return new RenderResponse(resp.body(), warnings);
+        /** Send the batch and hand each result to {@code handler} as soon as its frame arrives,
+         *  without buffering the whole response. Results may arrive out of order. */
+        public void send(BatchResultHandler handler) throws ForgeException, IOException {
+            client.sendBatch(payloads, sendOptions(), handler);
+        }
     }
 
     /** Builder for a render request. */
     public static class RenderRequestBuilder {
+        private static final Set<String> PAPER_SIZES = new LinkedHashSet<>(
+                Arrays.asList("a3", "a4", "a5", "b4", "b5", "letter", "legal", "ledger"));
+        private static final Set<String> MARGIN_PRESETS = new HashSet<>(
+                Arrays.asList("default", "none", "narrow"));
+
         private final ForgeClient client;
         private final String html;
         private final String url;
@@ -170,6 +578,10 @@ public class ForgeClient {
         private String pdfAccessibility;
         private Boolean pdfLinearize;
         private String pdfLang;
+        private Priority priority = Priority.NORMAL;
+        private String tenant;
+        private Instant deadline;
+        private String ifNoneMatch;
 
         RenderRequestBuilder(ForgeClient client, String html, String url) {
             this.client = client;
@@ -256,6 +668,24 @@ public class ForgeClient {
         public RenderRequestBuilder pdfLinearize(boolean linearize) { this.pdfLinearize = linearize; return this; }
         /** Document language as a BCP 47 tag (e.g. "en-US"). Required for PDF/UA-1. */
         public RenderRequestBuilder pdfLang(String lang) { this.pdfLang = lang; return this; }
+        /** Scheduling class when the client has a {@link RenderScheduler}. Not sent to the server. */
+        public RenderRequestBuilder priority(Priority p) { this.priority = p; return this; }
+        /** Tenant key for fair queuing when the client has a {@link RenderScheduler}. Not sent to the server. */
+        public RenderRequestBuilder tenant(String key) { this.tenant = key; return this; }
+
+        /** Absolute deadline covering scheduler queueing, connect, upload, render and download. The server-side
+         *  {@code timeout} is capped at the remaining budget, and the exchange is cancelled once it passes. */
+        public RenderRequestBuilder deadline(Instant at) { this.deadline = at; return this; }
+        /** Deadline {@code budget} from now. */
+        public RenderRequestBuilder deadline(Duration budget) { return deadline(Instant.now().plus(budget)); }
+
+        /** Send {@code If-None-Match}; if the server's output still has this ETag it answers 304 and
+         *  {@link #sendResponse()} returns a response whose {@link RenderResponse#isNotModified()} is true. */
+        public RenderRequestBuilder ifNoneMatch(String etag) { this.ifNoneMatch = etag; return this; }
+
+        SendOptions sendOptions() {
+            return new SendOptions(priority, tenant, deadline, ifNoneMatch);
+        }
 
         /** Build the JSON payload. */
         public JsonObject buildPayload() {
@@ -379,15 +809,132 @@ public class ForgeClient {
             return p;
         }
 
+        /**
+         * Check option values and combinations locally, so requests the server would reject
+         * fail without an upload. Run automatically before sending unless disabled with
+         * {@link ForgeClient.Builder#validateRequests(boolean)}.
+         */
+        public void validate() throws ForgeValidationException {
+            List<String> problems = new ArrayList<>();
+            if (html == null && url == null) problems.add("html or url is required");
+            if (width != null && width <= 0) problems.add("width must be positive");
+            if (height != null && height <= 0) problems.add("height must be positive");
+            if (density != null && !(density > 0 && Double.isFinite(density))) {
+                problems.add("density must be positive and finite");
+            }
+            if (timeout != null && timeout <= 0) problems.add("timeout must be positive");
+            if (paper != null && !PAPER_SIZES.contains(paper.toLowerCase(Locale.ROOT))) {
+                problems.add("unknown paper size \"" + paper + "\" (expected one of " + PAPER_SIZES + ")");
+            }
+            if (margins != null && !validMargins(margins)) {
+                problems.add("margins must be a preset (default, none, narrow) or \"T,R,B,L\" in mm, got \""
+                        + margins + "\"");
+            }
+            if (format == OutputFormat.PDF && (colors != null || palette != null || dither != null)) {
+                problems.add("colors, palette and dither apply to raster formats, not PDF");
+            }
+            if (colors != null && (colors < 2 || colors > 256)) problems.add("colors must be between 2 and 256");
+            if (pdfWatermarkOpacity != null && !(pdfWatermarkOpacity >= 0 && pdfWatermarkOpacity <= 1)) {
+                problems.add("pdfWatermarkOpacity must be between 0.0 and 1.0");
+            }
+            if (pdfWatermarkScale != null && !(pdfWatermarkScale >= 0 && pdfWatermarkScale <= 1)) {
+                problems.add("pdfWatermarkScale must be between 0.0 and 1.0");
+            }
+            if (pdfWatermarkRotation != null && !Double.isFinite(pdfWatermarkRotation)) {
+                problems.add("pdfWatermarkRotation must be finite");
+            }
+            if (pdfWatermarkFontSize != null && !(pdfWatermarkFontSize > 0 && Double.isFinite(pdfWatermarkFontSize))) {
+                problems.add("pdfWatermarkFontSize must be positive and finite");
+            }
+            if (AccessibilityLevel.PDF_UA_1.getValue().equals(pdfAccessibility) && pdfLang == null) {
+                problems.add("PDF/UA-1 accessibility requires pdfLang");
+            }
+            if (pdfEmbeddedFiles != null && pdfStandard != PdfStandard.A3B) {
+                problems.add("embedded files require pdfStandard A3B");
+            }
+            if (pdfEmbeddedFiles != null && pdfEmbeddedFiles.stream().anyMatch(ef -> ef[0] == null || ef[1] == null)) {
+                problems.add("embedded files require a path and data");
+            }
+            if (pdfSignCertificate == null && (pdfSignPassword != null || pdfSignName != null
+                    || pdfSignReason != null || pdfSignLocation != null || pdfSignTimestampUrl != null)) {
+                problems.add("signature options require pdfSignCertificate");
+            }
+            if (!problems.isEmpty()) throw new ForgeValidationException(problems);
+        }
+
+        private static boolean validMargins(String m) {
+            if (MARGIN_PRESETS.contains(m)) return true;
+            String[] parts = m.split(",", -1);
+            if (parts.length != 4) return false;
+            for (String part : parts) {
+                try {
+                    double mm = Double.parseDouble(part.trim());
+                    if (!(mm >= 0 && Double.isFinite(mm))) return false;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Size in bytes of the JSON body this request would upload, computed without serializing it. */
+        public long estimatedPayloadBytes() {
+            return PayloadSize.of(buildPayload());
+        }
+
+        /** Validate and build the payload, enforcing the client's size limit. */
+        JsonObject preparePayload() throws ForgeValidationException {
+            if (client.validateRequests) validate();
+            JsonObject payload = buildPayload();
+            if (client.maxPayloadBytes != Long.MAX_VALUE) {
+                long size = PayloadSize.of(payload);
+                if (size > client.maxPayloadBytes) {
+                    throw new ForgeValidationException(Collections.singletonList(
+                            "payload is " + size + " bytes, over the " + client.maxPayloadBytes + " byte limit"));
+                }
+            }
+            return payload;
+        }
+
+        /** Hex SHA-256 of the canonical payload: object keys sorted, attachments and barcodes
+         *  order-independent, client-side options excluded. Equal digests mean equivalent renders. */
+        public String payloadDigest() {
+            return PayloadDigest.hex(buildPayload());
+        }
+
         /** Send the render request and return raw output bytes. */
         public byte[] send() throws ForgeException {
-            return client.send(buildPayload());
+            return client.send(preparePayload(), sendOptions());
         }
 
         /** Send the render request and return a {@link RenderResponse} that includes any
          *  CSS compatibility warnings emitted by the server via {@code X-Forge-Warning} headers. */
         public RenderResponse sendResponse() throws ForgeException {
-            return client.sendWithResponse(buildPayload());
+            return client.sendWithResponse(preparePayload(), sendOptions());
+        }
+
+        /** Send the render request without blocking. The future completes exceptionally with a
+         *  {@link java.util.concurrent.CompletionException} wrapping a {@link ForgeException}. */
+        public CompletableFuture<RenderResponse> sendAsync() {
+            JsonObject payload;
+            try {
+                payload = preparePayload();
+            } catch (ForgeValidationException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return client.sendAsync(payload, sendOptions());
+        }
+
+        /** Render as {@link OutputFormat#QOI} and decode the pixels into {@code reuse} (or a new
+         *  buffer if it is {@code null}), for further processing with a {@link RasterPipeline}. */
+        public PixelBuffer sendRaster(PixelBuffer reuse) throws ForgeException {
+            this.format = OutputFormat.QOI;
+            byte[] data = send();
+            try {
+                return QoiCodec.decode(data, reuse);
+            } catch (IOException e) {
+                throw new ForgeException("invalid QOI output: " + e.getMessage(), e);
+            }
         }
     }
 }
@@ -1,15 +1,53 @@
 package com.centrix.forge;
 
+import java.time.Duration;
+
 /** The server returned a 4xx/5xx response. */
 public class ForgeServerException extends ForgeException {
     private final int statusCode;
+    private final String error;
+    private final Duration retryAfter;
+    private final String requestId;
 
     public ForgeServerException(int statusCode, String message) {
-        super("server error (" + statusCode + "): " + message);
+        this(statusCode, message, null, null);
+    }
+
+    public ForgeServerException(int statusCode, String message, Duration retryAfter, String requestId) {
+        super("server error (" + statusCode + "): " + message
+                + (requestId == null ? "" : " [request " + requestId + "]"));
         this.statusCode = statusCode;
+        this.error = message;
+        this.retryAfter = retryAfter;
+        this.requestId = requestId;
     }
 
     public int getStatusCode() {
         return statusCode;
     }
+
+    /** The server's {@code error} message, or {@code "HTTP <status>"} when the body had none. */
+    public String getError() {
+        return error;
+    }
+
+    /** Whether sending the same request again may succeed: 408, 425, 429, 502, 503 and 504. */
+    public boolean isRetryable() {
+        switch (statusCode) {
+            case 408: case 425: case 429: case 502: case 503: case 504:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Delay requested by the server's {@code Retry-After} header, or {@code null} if absent. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /** The server's {@code X-Request-Id} for this response, or {@code null} if absent. */
+    public String getRequestId() {
+        return requestId;
+    }
 }
@@ -0,0 +1,8 @@
+package com.centrix.forge;
+
+/** The request's deadline passed before the render completed. */
+public class ForgeTimeoutException extends ForgeException {
+    public ForgeTimeoutException(String phase) {
+        super("deadline exceeded " + phase);
+    }
+}
@@ -0,0 +1,20 @@
+package com.centrix.forge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** The request was rejected locally, before anything was sent to the server. */
+public class ForgeValidationException extends ForgeException {
+    private final List<String> problems;
+
+    public ForgeValidationException(List<String> problems) {
+        super("invalid request: " + String.join("; ", problems));
+        this.problems = Collections.unmodifiableList(new ArrayList<>(problems));
+    }
+
+    /** Every problem found, one message each. */
+    public List<String> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,56 @@
+package com.centrix.forge;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Result of {@link DifferentialRenderer#render}: the new frame and the tiles that differ from the last one. */
+public class FrameUpdate {
+    private final PixelBuffer frame;
+    private final boolean fullFrame;
+    private final boolean notModified;
+    private final List<Tile> changedTiles;
+
+    FrameUpdate(PixelBuffer frame, boolean fullFrame, boolean notModified, List<Tile> changedTiles) {
+        this.frame = frame;
+        this.fullFrame = fullFrame;
+        this.notModified = notModified;
+        this.changedTiles = Collections.unmodifiableList(changedTiles);
+    }
+
+    /** The current frame. Its buffer is reused by later renders of the same key; copy it to keep it. */
+    public PixelBuffer getFrame() { return frame; }
+
+    /** Whether there was no previous frame of the same size, so every tile is reported as changed. */
+    public boolean isFullFrame() { return fullFrame; }
+
+    /** Whether the server answered 304 for the previous frame's ETag; nothing was downloaded or compared. */
+    public boolean isNotModified() { return notModified; }
+
+    /** Whether no tile changed, either because of a 304 or because the pixels compared equal. */
+    public boolean isUnchanged() { return changedTiles.isEmpty(); }
+
+    /** Changed tiles in row-major order, each a copy of its region of the new frame. */
+    public List<Tile> getChangedTiles() { return changedTiles; }
+
+    /** A changed region of the frame. */
+    public static class Tile {
+        private final int x;
+        private final int y;
+        private final PixelBuffer pixels;
+
+        Tile(int x, int y, PixelBuffer pixels) {
+            this.x = x;
+            this.y = y;
+            this.pixels = pixels;
+        }
+
+        /** Left edge in frame pixels. */
+        public int getX() { return x; }
+
+        /** Top edge in frame pixels. */
+        public int getY() { return y; }
+
+        /** The tile's pixels; edge tiles are smaller than the configured tile size. */
+        public PixelBuffer getPixels() { return pixels; }
+    }
+}
@@ -0,0 +1,65 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serializes JSON trees with a {@link JsonWriter}, producing the same compact, HTML-safe
+ * output as {@code new Gson().toJson(tree)} without constructing a {@code Gson} instance or
+ * touching its reflective type adapters.
+ */
+final class JsonOutput {
+    private JsonOutput() {}
+
+    /** UTF-8 bytes of {@code e}, followed by {@code suffix} if it is non-zero. */
+    static byte[] toBytes(JsonElement e, char suffix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try (OutputStreamWriter chars = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+             JsonWriter w = new JsonWriter(chars)) {
+            w.setHtmlSafe(true);
+            w.setSerializeNulls(false);
+            write(w, e);
+            w.flush();
+            if (suffix != 0) chars.write(suffix);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] toBytes(JsonElement e) {
+        return toBytes(e, (char) 0);
+    }
+
+    static void write(JsonWriter w, JsonElement e) throws IOException {
+        if (e == null || e.isJsonNull()) {
+            w.nullValue();
+        } else if (e.isJsonPrimitive()) {
+            JsonPrimitive p = e.getAsJsonPrimitive();
+            if (p.isString()) w.value(p.getAsString());
+            else if (p.isBoolean()) w.value(p.getAsBoolean());
+            else w.value(p.getAsNumber());
+        } else if (e.isJsonArray()) {
+            w.beginArray();
+            for (JsonElement item : (JsonArray) e) write(w, item);
+            w.endArray();
+        } else {
+            w.beginObject();
+            for (Map.Entry<String, JsonElement> entry : ((JsonObject) e).entrySet()) {
+                w.name(entry.getKey());
+                write(w, entry.getValue());
+            }
+            w.endObject();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.centrix.forge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative values, in the style of HdrHistogram.
+ *
+ * <p>Values below 128 are counted exactly; larger values fall into buckets of 64 per power
+ * of two, which bounds the relative error of any reported percentile at about 1.6%.
+ * Recording is a handful of atomic increments and never blocks.
+ */
+public final class LatencyHistogram {
+    private static final int EXACT = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int BUCKETS = EXACT + 57 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Record one value; negative values are recorded as zero. */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) m = max.get();
+    }
+
+    /** Discard all recorded values. Values recorded concurrently may survive the reset. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /** Number of values recorded. */
+    public long getCount() { return count.sum(); }
+
+    /** Largest value recorded. */
+    public long getMax() { return max.get(); }
+
+    /** Mean of the values recorded. */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** Value at or below which {@code percentile} percent of recorded values fall. */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(highestEquivalent(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int bucket(long value) {
+        if (value < EXACT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestEquivalent(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+        long sub = (bucket - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
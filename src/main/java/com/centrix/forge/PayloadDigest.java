@@ -0,0 +1,101 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SHA-256 of a payload's canonical form, computed by streaming the canonical JSON straight
+ * into the digest rather than building a second copy.
+ *
+ * <p>The canonical form sorts object keys, and treats {@code embedded_files} and
+ * {@code barcodes} as unordered: each element is digested on its own and the array is
+ * replaced by its sorted element digests. Two payloads that differ only in builder call
+ * order therefore digest the same.
+ */
+final class PayloadDigest {
+    private static final Set<String> UNORDERED = Set.of("embedded_files", "barcodes");
+
+    private PayloadDigest() {}
+
+    static byte[] of(JsonElement payload) {
+        MessageDigest md = sha256();
+        try (JsonWriter w = new JsonWriter(new OutputStreamWriter(
+                new DigestOutputStream(OutputStream.nullOutputStream(), md), StandardCharsets.UTF_8))) {
+            write(w, payload, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return md.digest();
+    }
+
+    /** Lowercase hex of {@link #of}. */
+    static String hex(JsonElement payload) {
+        return hex(of(payload));
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void write(JsonWriter w, JsonElement e, String name) throws IOException {
+        if (e == null || e.isJsonNull()) {
+            w.nullValue();
+        } else if (e.isJsonPrimitive()) {
+            JsonPrimitive p = e.getAsJsonPrimitive();
+            if (p.isString()) w.value(p.getAsString());
+            else if (p.isBoolean()) w.value(p.getAsBoolean());
+            else w.value(p.getAsNumber());
+        } else if (e.isJsonArray()) {
+            JsonArray arr = e.getAsJsonArray();
+            w.beginArray();
+            if (UNORDERED.contains(name)) {
+                List<byte[]> digests = new ArrayList<>(arr.size());
+                for (JsonElement item : arr) digests.add(of(item));
+                digests.sort(Arrays::compareUnsigned);
+                for (byte[] d : digests) w.value(hex(d));
+            } else {
+                for (JsonElement item : arr) write(w, item, null);
+            }
+            w.endArray();
+        } else {
+            JsonObject obj = e.getAsJsonObject();
+            List<String> keys = new ArrayList<>(obj.keySet());
+            Collections.sort(keys);
+            w.beginObject();
+            for (String key : keys) {
+                w.name(key);
+                write(w, obj.get(key), key);
+            }
+            w.endObject();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Map;
+
+/**
+ * Computes the UTF-8 size of a JSON tree as {@link JsonOutput} serializes it (compact, HTML-safe
+ * escaping), by walking the tree instead of producing the text.
+ */
+final class PayloadSize {
+    private PayloadSize() {}
+
+    static long of(JsonElement e) {
+        if (e == null || e.isJsonNull()) return 4;
+        if (e.isJsonPrimitive()) {
+            JsonPrimitive p = e.getAsJsonPrimitive();
+            if (p.isString()) return string(p.getAsString());
+            if (p.isBoolean()) return p.getAsBoolean() ? 4 : 5;
+            return p.getAsNumber().toString().length();
+        }
+        if (e.isJsonArray()) {
+            JsonArray arr = e.getAsJsonArray();
+            long n = 2 + Math.max(0, arr.size() - 1);
+            for (JsonElement item : arr) n += of(item);
+            return n;
+        }
+        // JsonOutput does not serialize nulls, so null members are dropped with their commas.
+        long n = 2;
+        int members = 0;
+        for (Map.Entry<String, JsonElement> entry : e.getAsJsonObject().entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isJsonNull()) continue;
+            n += string(entry.getKey()) + 1 + of(entry.getValue());
+            members++;
+        }
+        return n + Math.max(0, members - 1);
+    }
+
+    /** Size of a quoted, escaped JSON string. */
+    static long string(String s) {
+        long n = 2;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"': case '\\': case '\t': case '\b': case '\n': case '\r': case '\f':
+                        n += 2;
+                        break;
+                    case '<': case '>': case '&': case '=': case '\'':
+                        n += 6; // six-character unicode escape
+                        break;
+                    default:
+                        n += c < 0x20 ? 6 : 1;
+                }
+            } else if (c == '\u2028' || c == '\u2029') {
+                n += 6;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+}
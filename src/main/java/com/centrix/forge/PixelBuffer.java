@@ -0,0 +1,72 @@
+package com.centrix.forge;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+/**
+ * A decoded image as packed {@code 0xAARRGGBB} pixels in row-major order.
+ *
+ * <p>The backing array may be larger than {@code width * height}, so one buffer can be
+ * reused across images of different sizes via {@link #reshape}.
+ */
+public class PixelBuffer {
+    private int width;
+    private int height;
+    private int[] pixels;
+
+    public PixelBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[checkedArea(width, height)];
+    }
+
+    /** Resize to {@code width x height}, reusing {@code reuse}'s array when it is large enough. */
+    public static PixelBuffer reshape(PixelBuffer reuse, int width, int height) {
+        if (reuse == null) return new PixelBuffer(width, height);
+        int area = checkedArea(width, height);
+        if (reuse.pixels.length < area) reuse.pixels = new int[area];
+        reuse.width = width;
+        reuse.height = height;
+        return reuse;
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    /** The backing array; only the first {@code width * height} entries are meaningful. */
+    public int[] getPixels() { return pixels; }
+
+    public int getPixel(int x, int y) { return pixels[y * width + x]; }
+
+    public void setPixel(int x, int y, int argb) { pixels[y * width + x] = argb; }
+
+    /** A {@link BufferedImage} sharing this buffer's pixels; opaque images drop the alpha channel. */
+    public BufferedImage toBufferedImage(boolean alpha) {
+        DataBufferInt data = new DataBufferInt(pixels, width * height);
+        ColorModel model = alpha ? ColorModel.getRGBdefault()
+                : new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
+        int[] masks = alpha ? new int[]{0xff0000, 0xff00, 0xff, 0xff000000} : new int[]{0xff0000, 0xff00, 0xff};
+        WritableRaster raster = Raster.createPackedRaster(data, width, height, width, masks, null);
+        return new BufferedImage(model, raster, false, null);
+    }
+
+    /** Whether every pixel is fully opaque. */
+    boolean isOpaque() {
+        for (int i = 0, n = width * height; i < n; i++) {
+            if ((pixels[i] >>> 24) != 0xff) return false;
+        }
+        return true;
+    }
+
+    private static int checkedArea(int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("invalid image size " + width + "x" + height);
+        }
+        return width * height;
+    }
+}
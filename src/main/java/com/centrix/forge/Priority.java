@@ -0,0 +1,11 @@
+package com.centrix.forge;
+
+/** Scheduling class of a render request when the client has a {@link RenderScheduler}. */
+public enum Priority {
+    /** Latency-sensitive renders, e.g. a user waiting on a download. Always dispatched first. */
+    INTERACTIVE,
+    /** Default class. */
+    NORMAL,
+    /** Bulk work that only uses capacity left over by the other classes. */
+    BULK
+}
@@ -0,0 +1,199 @@
+package com.centrix.forge;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Encoder and streaming decoder for QOI ("Quite OK Image") data.
+ *
+ * <p>The decoder reads through a small fixed buffer and writes straight into a
+ * {@link PixelBuffer}, so decoding a render allocates nothing proportional to the image
+ * when a buffer is reused.
+ */
+public final class QoiCodec {
+    private static final int OP_INDEX = 0x00;
+    private static final int OP_DIFF = 0x40;
+    private static final int OP_LUMA = 0x80;
+    private static final int OP_RUN = 0xc0;
+    private static final int OP_RGB = 0xfe;
+    private static final int OP_RGBA = 0xff;
+    private static final int MASK = 0xc0;
+    private static final int HEADER_SIZE = 14;
+    private static final byte[] END = {0, 0, 0, 0, 0, 0, 0, 1};
+
+    private QoiCodec() {}
+
+    /** Decode a QOI image into {@code reuse} (resized as needed), or a new buffer if it is {@code null}. */
+    public static PixelBuffer decode(byte[] data, PixelBuffer reuse) throws IOException {
+        return decode(new ByteArrayInputStream(data), reuse);
+    }
+
+    /** Decode a QOI image from {@code in}, which may be read past the end of the image. */
+    public static PixelBuffer decode(InputStream in, PixelBuffer reuse) throws IOException {
+        Input r = new Input(in);
+        if (r.read() != 'q' || r.read() != 'o' || r.read() != 'i' || r.read() != 'f') {
+            throw new IOException("not a QOI image");
+        }
+        int width = r.readInt();
+        int height = r.readInt();
+        r.read(); // channels: pixels always decode to ARGB
+        r.read(); // colorspace
+        if (width <= 0 || height <= 0) throw new IOException("invalid QOI size " + width + "x" + height);
+
+        PixelBuffer out = PixelBuffer.reshape(reuse, width, height);
+        int[] px = out.getPixels();
+        int[] index = new int[64];
+        int p = 0xff000000;
+        int run = 0;
+        for (int i = 0, n = width * height; i < n; i++) {
+            if (run > 0) {
+                run--;
+            } else {
+                int b1 = r.read();
+                if (b1 == OP_RGB) {
+                    p = (p & 0xff000000) | r.read() << 16 | r.read() << 8 | r.read();
+                } else if (b1 == OP_RGBA) {
+                    int rgb = r.read() << 16 | r.read() << 8 | r.read();
+                    p = r.read() << 24 | rgb;
+                } else if ((b1 & MASK) == OP_INDEX) {
+                    p = index[b1];
+                } else if ((b1 & MASK) == OP_DIFF) {
+                    p = add(p, ((b1 >> 4) & 3) - 2, ((b1 >> 2) & 3) - 2, (b1 & 3) - 2);
+                } else if ((b1 & MASK) == OP_LUMA) {
+                    int b2 = r.read();
+                    int dg = (b1 & 0x3f) - 32;
+                    p = add(p, dg - 8 + ((b2 >> 4) & 0x0f), dg, dg - 8 + (b2 & 0x0f));
+                } else {
+                    run = b1 & 0x3f;
+                }
+                index[hash(p)] = p;
+            }
+            px[i] = p;
+        }
+        return out;
+    }
+
+    /** Encode the pixels of {@code image}; 3 channels are declared when it is fully opaque. */
+    public static byte[] encode(PixelBuffer image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int n = width * height;
+        byte[] out = new byte[HEADER_SIZE + n * 5 + END.length];
+        int o = 0;
+        out[o++] = 'q';
+        out[o++] = 'o';
+        out[o++] = 'i';
+        out[o++] = 'f';
+        o = putInt(out, o, width);
+        o = putInt(out, o, height);
+        out[o++] = (byte) (image.isOpaque() ? 3 : 4);
+        out[o++] = 0;
+
+        int[] px = image.getPixels();
+        int[] index = new int[64];
+        int prev = 0xff000000;
+        int run = 0;
+        for (int i = 0; i < n; i++) {
+            int p = px[i];
+            if (p == prev) {
+                run++;
+                if (run == 62 || i == n - 1) {
+                    out[o++] = (byte) (OP_RUN | (run - 1));
+                    run = 0;
+                }
+                continue;
+            }
+            if (run > 0) {
+                out[o++] = (byte) (OP_RUN | (run - 1));
+                run = 0;
+            }
+            int h = hash(p);
+            if (index[h] == p) {
+                out[o++] = (byte) (OP_INDEX | h);
+            } else {
+                index[h] = p;
+                if ((p >>> 24) == (prev >>> 24)) {
+                    int vr = (byte) ((p >> 16) - (prev >> 16));
+                    int vg = (byte) ((p >> 8) - (prev >> 8));
+                    int vb = (byte) (p - prev);
+                    int vgr = vr - vg;
+                    int vgb = vb - vg;
+                    if (vr > -3 && vr < 2 && vg > -3 && vg < 2 && vb > -3 && vb < 2) {
+                        out[o++] = (byte) (OP_DIFF | (vr + 2) << 4 | (vg + 2) << 2 | (vb + 2));
+                    } else if (vgr > -9 && vgr < 8 && vg > -33 && vg < 32 && vgb > -9 && vgb < 8) {
+                        out[o++] = (byte) (OP_LUMA | (vg + 32));
+                        out[o++] = (byte) ((vgr + 8) << 4 | (vgb + 8));
+                    } else {
+                        out[o++] = (byte) OP_RGB;
+                        out[o++] = (byte) (p >> 16);
+                        out[o++] = (byte) (p >> 8);
+                        out[o++] = (byte) p;
+                    }
+                } else {
+                    out[o++] = (byte) OP_RGBA;
+                    out[o++] = (byte) (p >> 16);
+                    out[o++] = (byte) (p >> 8);
+                    out[o++] = (byte) p;
+                    out[o++] = (byte) (p >>> 24);
+                }
+            }
+            prev = p;
+        }
+        System.arraycopy(END, 0, out, o, END.length);
+        return Arrays.copyOf(out, o + END.length);
+    }
+
+    private static int hash(int argb) {
+        int a = argb >>> 24;
+        int r = (argb >> 16) & 0xff;
+        int g = (argb >> 8) & 0xff;
+        int b = argb & 0xff;
+        return (r * 3 + g * 5 + b * 7 + a * 11) & 63;
+    }
+
+    private static int add(int argb, int dr, int dg, int db) {
+        int r = ((argb >> 16) + dr) & 0xff;
+        int g = ((argb >> 8) + dg) & 0xff;
+        int b = (argb + db) & 0xff;
+        return (argb & 0xff000000) | r << 16 | g << 8 | b;
+    }
+
+    private static int putInt(byte[] out, int o, int v) {
+        out[o++] = (byte) (v >>> 24);
+        out[o++] = (byte) (v >>> 16);
+        out[o++] = (byte) (v >>> 8);
+        out[o++] = (byte) v;
+        return o;
+    }
+
+    /** Buffered unsigned-byte reader over a stream. */
+    private static final class Input {
+        private final InputStream in;
+        private final byte[] buf = new byte[8192];
+        private int pos;
+        private int limit;
+
+        Input(InputStream in) {
+            this.in = in;
+        }
+
+        int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("QOI data truncated");
+                }
+            }
+            return buf[pos++] & 0xff;
+        }
+
+        int readInt() throws IOException {
+            return read() << 24 | read() << 16 | read() << 8 | read();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.centrix.forge;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Crops, scales, tiles and re-encodes decoded raster renders.
+ *
+ * <p>A crop and a scale are applied together in one pass over the destination rows, which
+ * are split across the pool's threads. Pipelines are immutable and thread-safe.
+ *
+ * <pre>{@code
+ * RasterPipeline thumbs = new RasterPipeline().crop(0, 0, 800, 480).scale(200, 120);
+ * PixelBuffer frame = client.renderUrl(url).width(800).height(480).sendRaster(null);
+ * byte[] png = thumbs.encode(thumbs.apply(frame, null), OutputFormat.PNG);
+ * }</pre>
+ */
+public class RasterPipeline {
+    /** Images smaller than this many destination pixels are processed on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int cropX, cropY, cropWidth, cropHeight;
+    private final int scaleWidth, scaleHeight;
+
+    /** A pipeline that runs on the common fork-join pool. */
+    public RasterPipeline() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RasterPipeline(ForkJoinPool pool) {
+        this(pool, 0, 0, 0, 0, 0, 0);
+    }
+
+    private RasterPipeline(ForkJoinPool pool, int cropX, int cropY, int cropWidth, int cropHeight,
+                           int scaleWidth, int scaleHeight) {
+        this.pool = pool;
+        this.cropX = cropX;
+        this.cropY = cropY;
+        this.cropWidth = cropWidth;
+        this.cropHeight = cropHeight;
+        this.scaleWidth = scaleWidth;
+        this.scaleHeight = scaleHeight;
+    }
+
+    /** Keep only the given region of the source; clipped to the source bounds. */
+    public RasterPipeline crop(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid crop " + width + "x" + height + "+" + x + "+" + y);
+        }
+        return new RasterPipeline(pool, x, y, width, height, scaleWidth, scaleHeight);
+    }
+
+    /**
+     * Resize the (cropped) image to {@code width x height}. Shrinking averages each
+     * destination pixel's source box; enlarging repeats source pixels.
+     */
+    public RasterPipeline scale(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("invalid scale " + width + "x" + height);
+        return new RasterPipeline(pool, cropX, cropY, cropWidth, cropHeight, width, height);
+    }
+
+    /** Apply the crop and scale to {@code src}, writing into {@code reuse} when it is non-null. */
+    public PixelBuffer apply(PixelBuffer src, PixelBuffer reuse) {
+        int x0 = Math.min(cropX, src.getWidth() - 1);
+        int y0 = Math.min(cropY, src.getHeight() - 1);
+        int w = cropWidth == 0 ? src.getWidth() - x0 : Math.min(cropWidth, src.getWidth() - x0);
+        int h = cropHeight == 0 ? src.getHeight() - y0 : Math.min(cropHeight, src.getHeight() - y0);
+        int dw = scaleWidth == 0 ? w : scaleWidth;
+        int dh = scaleHeight == 0 ? h : scaleHeight;
+        PixelBuffer dst = PixelBuffer.reshape(reuse, dw, dh);
+        if (dst == src) throw new IllegalArgumentException("cannot apply a pipeline in place");
+
+        int[] in = src.getPixels();
+        int[] out = dst.getPixels();
+        int stride = src.getWidth();
+        if (dw == w && dh == h) {
+            rows(dh, (long) dw * dh, y -> System.arraycopy(in, (y0 + y) * stride + x0, out, y * dw, dw));
+        } else {
+            rows(dh, (long) dw * dh, y -> scaleRow(in, stride, x0, y0, w, h, out, dw, dh, y));
+        }
+        return dst;
+    }
+
+    /**
+     * Split {@code src} into {@code tileWidth x tileHeight} tiles in row-major order; tiles on
+     * the right and bottom edges are smaller when the size does not divide evenly.
+     */
+    public List<PixelBuffer> tiles(PixelBuffer src, int tileWidth, int tileHeight) {
+        if (tileWidth <= 0 || tileHeight <= 0) {
+            throw new IllegalArgumentException("invalid tile size " + tileWidth + "x" + tileHeight);
+        }
+        int cols = (src.getWidth() + tileWidth - 1) / tileWidth;
+        int rows = (src.getHeight() + tileHeight - 1) / tileHeight;
+        PixelBuffer[] tiles = new PixelBuffer[cols * rows];
+        RasterPipeline plain = new RasterPipeline(pool);
+        rows(tiles.length, (long) src.getWidth() * src.getHeight(), i -> {
+            int x = (i % cols) * tileWidth;
+            int y = (i / cols) * tileHeight;
+            tiles[i] = plain.crop(x, y, tileWidth, tileHeight).apply(src, null);
+        });
+        return new ArrayList<>(List.of(tiles));
+    }
+
+    /** Encode {@code image} as {@link OutputFormat#QOI}, {@code PNG}, {@code BMP} or {@code JPEG}. */
+    public byte[] encode(PixelBuffer image, OutputFormat format) throws IOException {
+        if (format == OutputFormat.QOI) return QoiCodec.encode(image);
+        boolean alpha = format == OutputFormat.PNG && !image.isOpaque();
+        if (format != OutputFormat.PNG && format != OutputFormat.BMP && format != OutputFormat.JPEG) {
+            throw new IllegalArgumentException("cannot encode " + format.getValue());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image.toBufferedImage(alpha), format.getValue(), out)) {
+            throw new IOException("no ImageIO writer for " + format.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    private void rows(int count, long work, IntConsumer row) {
+        if (work < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+            for (int i = 0; i < count; i++) row.accept(i);
+        } else {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(row)).join();
+        }
+    }
+
+    /** Box-filter one destination row from the {@code w x h} source region at {@code (x0, y0)}. */
+    private static void scaleRow(int[] in, int stride, int x0, int y0, int w, int h,
+                                 int[] out, int dw, int dh, int y) {
+        int sy0 = (int) ((long) y * h / dh);
+        int sy1 = Math.max(sy0 + 1, (int) ((long) (y + 1) * h / dh));
+        for (int x = 0; x < dw; x++) {
+            int sx0 = (int) ((long) x * w / dw);
+            int sx1 = Math.max(sx0 + 1, (int) ((long) (x + 1) * w / dw));
+            long a = 0, r = 0, g = 0, b = 0;
+            for (int sy = sy0; sy < sy1; sy++) {
+                int base = (y0 + sy) * stride + x0;
+                for (int sx = sx0; sx < sx1; sx++) {
+                    int p = in[base + sx];
+                    a += p >>> 24;
+                    r += (p >> 16) & 0xff;
+                    g += (p >> 8) & 0xff;
+                    b += p & 0xff;
+                }
+            }
+            int n = (sy1 - sy0) * (sx1 - sx0);
+            out[y * dw + x] = (int) ((a + n / 2) / n) << 24 | (int) ((r + n / 2) / n) << 16
+                    | (int) ((g + n / 2) / n) << 8 | (int) ((b + n / 2) / n);
+        }
+    }
+}
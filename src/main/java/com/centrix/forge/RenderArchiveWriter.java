@@ -0,0 +1,94 @@
+package com.centrix.forge;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams render outputs into a single zip archive as they complete.
+ *
+ * <p>Each output is written as its own entry and released immediately, so only the
+ * render currently being written is held in memory. The writer can be passed directly
+ * to {@link ForgeClient.BatchRequestBuilder#send(BatchResultHandler)}, fed from
+ * {@link ForgeClient.RenderRequestBuilder#sendAsync()} futures, or given bytes directly.
+ * Writes are serialized, so it is safe to feed from multiple threads.
+ */
+public class RenderArchiveWriter implements BatchResultHandler, Closeable {
+    private final ZipOutputStream zip;
+    private final IntFunction<String> batchEntryName;
+    private final List<BatchResult> failures = Collections.synchronizedList(new ArrayList<>());
+    private int entries;
+
+    /** Write to {@code out}, naming batch items {@code render-<index>}. */
+    public RenderArchiveWriter(OutputStream out) {
+        this(out, i -> "render-" + i);
+    }
+
+    /** Write to {@code out}, naming batch items with {@code batchEntryName(index)}. */
+    public RenderArchiveWriter(OutputStream out, IntFunction<String> batchEntryName) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out));
+        this.batchEntryName = batchEntryName;
+    }
+
+    /** Write to a new file at {@code path}, naming batch items with {@code batchEntryName(index)}. */
+    public RenderArchiveWriter(Path path, IntFunction<String> batchEntryName) throws IOException {
+        this(Files.newOutputStream(path), batchEntryName);
+    }
+
+    /** Append one entry to the archive. */
+    public synchronized void add(String name, byte[] data) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(data);
+        zip.closeEntry();
+        entries++;
+    }
+
+    /** Append the output of a pending async render once it completes. The returned future
+     *  completes after the entry is written, or exceptionally if the render or write failed. */
+    public CompletableFuture<Void> add(String name, CompletableFuture<RenderResponse> pending) {
+        return pending.thenAccept(resp -> {
+            try {
+                add(name, resp.getData());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Append a successful batch item; failed items are recorded in {@link #getFailures()}. */
+    @Override
+    public void onResult(BatchResult result) throws IOException {
+        if (result.isSuccess()) {
+            add(batchEntryName.apply(result.getIndex()), result.getResponse().getData());
+        } else {
+            failures.add(result);
+        }
+    }
+
+    /** Number of entries written so far. */
+    public synchronized int getEntryCount() { return entries; }
+
+    /** Batch items that failed and were not written. */
+    public List<BatchResult> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /** Finish the archive and close the underlying stream. */
+    @Override
+    public synchronized void close() throws IOException {
+        zip.close();
+    }
+}
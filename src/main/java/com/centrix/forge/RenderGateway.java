@@ -0,0 +1,344 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A host-local render gateway: one process owns the {@link ForgeClient} (its connection
+ * pool, {@link RenderScheduler} and statistics) and other processes on the host send their
+ * renders through it.
+ *
+ * <p>The gateway speaks the Forge protocol ({@code /health}, {@code /render},
+ * {@code /render/batch}) on the loopback interface, so any client can use it as its base
+ * URL. Clients built with {@link ForgeClient.Builder#gateway()} also forward their priority,
+ * tenant and deadline, so the shared scheduler can arbitrate between services. Identical
+ * concurrent renders (by the caller's {@code Idempotency-Key}, else canonical payload digest)
+ * are coalesced into one upstream request that carries that key, and successful outputs can
+ * be cached. Batches are passed through uncached.
+ *
+ * <pre>{@code
+ * ForgeClient upstream = ForgeClient.builder("http://forge:3000")
+ *         .scheduler(new RenderScheduler(32))
+ *         .build();
+ * RenderGateway gateway = RenderGateway.builder(upstream).port(7300).cache(256 << 20, Duration.ofSeconds(30)).build();
+ * }</pre>
+ */
+public class RenderGateway implements Closeable {
+    static final String PRIORITY_HEADER = "X-Forge-Priority";
+    static final String TENANT_HEADER = "X-Forge-Tenant";
+    static final String DEADLINE_HEADER = "X-Forge-Deadline";
+
+    private final ForgeClient upstream;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final RenderCache cache;
+    private final Map<String, CompletableFuture<RenderResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder upstreamRenders = new LongAdder();
+
+    private RenderGateway(Builder b) throws IOException {
+        this.upstream = b.upstream;
+        this.cache = b.cacheBytes > 0 ? new RenderCache(b.cacheBytes, b.cacheTtl) : null;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "forge-gateway-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), b.port), 0);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/render/batch", this::handleBatch);
+        server.createContext("/render", this::handleRender);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /** Start configuring a gateway that renders through {@code upstream}. */
+    public static Builder builder(ForgeClient upstream) {
+        return new Builder(upstream);
+    }
+
+    /** Builder for a {@link RenderGateway}. */
+    public static class Builder {
+        private final ForgeClient upstream;
+        private int port;
+        private long cacheBytes;
+        private Duration cacheTtl = Duration.ZERO;
+
+        Builder(ForgeClient upstream) {
+            this.upstream = upstream;
+        }
+
+        /** Loopback port to listen on (default: 0, an ephemeral port). */
+        public Builder port(int port) { this.port = port; return this; }
+
+        /** Cache successful outputs, keyed by canonical payload digest, up to {@code maxBytes} for {@code ttl} each. */
+        public Builder cache(long maxBytes, Duration ttl) { this.cacheBytes = maxBytes; this.cacheTtl = ttl; return this; }
+
+        /** Bind and start serving. */
+        public RenderGateway build() throws IOException {
+            return new RenderGateway(this);
+        }
+    }
+
+    /** Base URL to pass to {@link ForgeClient#builder(String)}. */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /** Renders answered from the cache. */
+    public long getCacheHits() { return cacheHits.sum(); }
+
+    /** Renders that joined an identical in-flight upstream render. */
+    public long getCoalesced() { return coalesced.sum(); }
+
+    /** Single renders sent to the upstream server. */
+    public long getUpstreamRenders() { return upstreamRenders.sum(); }
+
+    /** Stop accepting requests. The upstream client is left open. */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleHealth(HttpExchange ex) throws IOException {
+        boolean up = upstream.health();
+        JsonObject status = new JsonObject();
+        status.addProperty("status", up ? "ok" : "unavailable");
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        respond(ex, up ? 200 : 503, status.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleRender(HttpExchange ex) throws IOException {
+        byte[] body = ex.getRequestBody().readAllBytes();
+        JsonObject payload;
+        SendOptions options;
+        try {
+            payload = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+            options = options(ex.getRequestHeaders());
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException | DateTimeParseException e) {
+            respondError(ex, 400, "invalid request: " + e.getMessage());
+            return;
+        }
+
+        // A client's key predates its deadline capping the payload's timeout; our own digest does not.
+        String key = options.idempotencyKey != null ? options.idempotencyKey : PayloadDigest.hex(payload);
+        RenderResponse cached = cache == null ? null : cache.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            respondRender(ex, cached);
+            return;
+        }
+
+        CompletableFuture<RenderResponse> mine = new CompletableFuture<>();
+        CompletableFuture<RenderResponse> render = inFlight.putIfAbsent(key, mine);
+        if (render == null) {
+            render = mine;
+            upstreamRenders.increment();
+            upstream.sendAsync(payload, options).whenComplete((resp, err) -> {
+                if (resp != null && cache != null) cache.put(key, resp);
+                inFlight.remove(key, mine);
+                if (err != null) mine.completeExceptionally(err);
+                else mine.complete(resp);
+            });
+        } else {
+            coalesced.increment();
+        }
+        render.whenCompleteAsync((resp, err) -> {
+            try {
+                if (err == null) {
+                    respondRender(ex, resp);
+                } else {
+                    respondFailure(ex, err instanceof CompletionException ? err.getCause() : err);
+                }
+            } catch (IOException e) {
+                // Caller went away.
+            }
+        }, executor);
+    }
+
+    private void handleBatch(HttpExchange ex) throws IOException {
+        List<JsonObject> payloads = new ArrayList<>();
+        SendOptions options;
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) payloads.add(JsonParser.parseString(line).getAsJsonObject());
+            }
+            options = options(ex.getRequestHeaders());
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException | DateTimeParseException e) {
+            respondError(ex, 400, "invalid request: " + e.getMessage());
+            return;
+        }
+
+        boolean[] started = new boolean[1];
+        DataOutputStream frames = new DataOutputStream(ex.getResponseBody());
+        try {
+            upstream.sendBatch(payloads, options, result -> {
+                if (!started[0]) {
+                    ex.getResponseHeaders().set("Content-Type", "application/x-forge-batch");
+                    ex.sendResponseHeaders(200, 0);
+                    started[0] = true;
+                }
+                byte[] data = result.isSuccess()
+                        ? result.getResponse().getData()
+                        : errorBody(result.getError().getError());
+                frames.writeInt(result.getIndex());
+                frames.writeShort(result.isSuccess() ? 200 : result.getError().getStatusCode());
+                frames.writeInt(data.length);
+                frames.write(data);
+            });
+            if (!started[0]) respond(ex, 200, new byte[0]);
+        } catch (ForgeException e) {
+            // Once frames are flowing the status is sent; closing early surfaces as a truncated batch.
+            if (!started[0]) respondFailure(ex, e);
+        } finally {
+            ex.close();
+        }
+    }
+
+    /** Scheduling options and the idempotency key forwarded by a client in gateway mode. */
+    static SendOptions options(Headers headers) {
+        String priority = headers.getFirst(PRIORITY_HEADER);
+        String deadline = headers.getFirst(DEADLINE_HEADER);
+        return new SendOptions(
+                priority == null ? Priority.NORMAL : Priority.valueOf(priority),
+                headers.getFirst(TENANT_HEADER),
+                deadline == null ? null : Instant.parse(deadline),
+                null,
+                headers.getFirst("Idempotency-Key"));
+    }
+
+    private static void respondRender(HttpExchange ex, RenderResponse resp) throws IOException {
+        Headers headers = ex.getResponseHeaders();
+        for (String warning : resp.getWarnings()) headers.add("X-Forge-Warning", warning);
+        if (resp.getETag() != null) {
+            headers.set("ETag", resp.getETag());
+            if (resp.getETag().equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                respond(ex, 304, new byte[0]);
+                return;
+            }
+        }
+        respond(ex, 200, resp.getData());
+    }
+
+    private static void respondFailure(HttpExchange ex, Throwable err) throws IOException {
+        if (err instanceof ForgeServerException) {
+            ForgeServerException e = (ForgeServerException) err;
+            if (e.getRetryAfter() != null) {
+                ex.getResponseHeaders().set("Retry-After", Long.toString(e.getRetryAfter().getSeconds()));
+            }
+            if (e.getRequestId() != null) ex.getResponseHeaders().set("X-Request-Id", e.getRequestId());
+            respondError(ex, e.getStatusCode(), e.getError());
+        } else if (err instanceof ForgeTimeoutException) {
+            respondError(ex, 504, err.getMessage());
+        } else {
+            respondError(ex, 502, "upstream unavailable: " + err.getMessage());
+        }
+    }
+
+    private static void respondError(HttpExchange ex, int status, String message) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        respond(ex, status, errorBody(message));
+    }
+
+    private static byte[] errorBody(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getRequestBody().readAllBytes();
+        if (status == 304) {
+            // No body to send; end the exchange without opening the response stream.
+            ex.sendResponseHeaders(304, -1);
+            ex.close();
+            return;
+        }
+        ex.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /** Byte-bounded LRU of successful renders with a fixed time to live. */
+    private static final class RenderCache {
+        private final long maxBytes;
+        private final long ttlNanos;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        private static final class Entry {
+            final RenderResponse response;
+            final long expiresAt;
+
+            Entry(RenderResponse response, long expiresAt) {
+                this.response = response;
+                this.expiresAt = expiresAt;
+            }
+        }
+
+        RenderCache(long maxBytes, Duration ttl) {
+            this.maxBytes = maxBytes;
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        synchronized RenderResponse get(String key) {
+            Entry e = entries.get(key);
+            if (e == null) return null;
+            if (System.nanoTime() - e.expiresAt >= 0) {
+                entries.remove(key);
+                bytes -= e.response.getData().length;
+                return null;
+            }
+            return e.response;
+        }
+
+        synchronized void put(String key, RenderResponse response) {
+            int size = response.getData().length;
+            if (ttlNanos <= 0 || size > maxBytes) return;
+            Entry old = entries.put(key, new Entry(response, System.nanoTime() + ttlNanos));
+            if (old != null) bytes -= old.response.getData().length;
+            bytes += size;
+            Iterator<Entry> it = entries.values().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().response.getData().length;
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.centrix.forge;
+
+import java.io.IOException;
+
+/** Receives the outcome of each job drained from a {@link RenderQueue}. */
+public interface RenderJobHandler {
+    /** Called with the rendered output. The job is marked complete only after this returns normally. */
+    void onSuccess(long id, RenderResponse response) throws IOException;
+
+    /** Called when a job fails. Client errors (4xx) are terminal; other failures leave the job queued. */
+    default void onFailure(long id, ForgeException error) {}
+}
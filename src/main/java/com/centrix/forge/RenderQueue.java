@@ -0,0 +1,393 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only on-disk queue of render jobs.
+ *
+ * <p>Jobs are stored as checksummed records in memory-mapped segment files under a
+ * directory. Each record is {@code u32 length | u32 crc32 | u8 type | i64 id | payload},
+ * where the type marks a job as enqueued, completed or failed. On open, the segments are
+ * replayed to rebuild the set of pending jobs; a torn or corrupt record at the tail (e.g.
+ * from a crash mid-write) ends the log and is overwritten by the next append. Segments are
+ * deleted from the head of the log once every job enqueued in them has finished; a later
+ * segment is kept while an earlier one still holds pending jobs, because it may carry
+ * their completion records.
+ *
+ * <p>Pending jobs are kept in memory only as offsets into the mapped segments; payloads are
+ * read back when a job is drained.
+ *
+ * <p>Records are made durable by group commit: writers append under the queue lock, then
+ * one {@code force()} outside it covers every record appended so far, so concurrent
+ * completions and {@link #enqueueAll(Iterable)} share a single flush of the segment.
+ */
+public class RenderQueue implements Closeable {
+    /** Default size of a segment file. */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    private static final byte ENQUEUED = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte FAILED = 3;
+    private static final int FRAME_BYTES = 8;          // length + crc
+    private static final int RECORD_HEADER_BYTES = 9;  // type + id
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final Map<Long, Job> pending = new LinkedHashMap<>();
+    private final Set<Long> running = new HashSet<>();
+    private final Object forceLock = new Object();
+    private Segment active;
+    private long nextId = 1;
+    private long appended;
+    private long forced;  // guarded by forceLock
+
+    private static class Segment {
+        final int number;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buf;
+        int writePos;
+        int live;
+
+        Segment(int number, Path path, FileChannel channel, MappedByteBuffer buf) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buf = buf;
+        }
+    }
+
+    private static class Job {
+        final Segment segment;
+        final int offset;
+        final int length;
+
+        Job(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /** Open (or create) a queue in {@code dir} with the default segment size. */
+    public RenderQueue(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /** Open (or create) a queue in {@code dir}, recovering any pending jobs. */
+    public RenderQueue(Path dir, int segmentBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    /** Validate and persist a render request and return its job id. The payload is captured at the time of the call. */
+    public long enqueue(ForgeClient.RenderRequestBuilder request) throws IOException, ForgeValidationException {
+        return enqueueAll(List.of(request)).get(0);
+    }
+
+    /**
+     * Validate and persist several render requests with a single flush to disk, and return
+     * their job ids in order. Every request is validated before any is written.
+     */
+    public List<Long> enqueueAll(Iterable<ForgeClient.RenderRequestBuilder> requests)
+            throws IOException, ForgeValidationException {
+        List<byte[]> payloads = new ArrayList<>();
+        for (ForgeClient.RenderRequestBuilder request : requests) {
+            payloads.add(request.preparePayload().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        List<Long> ids = new ArrayList<>(payloads.size());
+        long sequence;
+        synchronized (this) {
+            for (byte[] payload : payloads) {
+                long id = nextId++;
+                int offset = append(ENQUEUED, id, payload);
+                active.live++;
+                pending.put(id, new Job(active, offset, payload.length));
+                ids.add(id);
+            }
+            sequence = appended;
+        }
+        awaitDurable(sequence);
+        return ids;
+    }
+
+    /** Number of jobs not yet completed or failed. */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /** Ids of jobs not yet completed or failed, in enqueue order. */
+    public synchronized List<Long> pendingIds() {
+        return new ArrayList<>(pending.keySet());
+    }
+
+    /**
+     * Render every pending job with up to {@code parallelism} concurrent requests.
+     *
+     * <p>Jobs are sent with {@link Priority#BULK}, so interactive requests on a scheduled client
+     * take precedence. A job is marked complete after {@code handler.onSuccess} returns, so a crash before
+     * that point re-renders it on the next drain. Client errors (4xx other than 429) mark the
+     * job failed; connection errors, 429s and 5xx leave it pending for a later drain. Jobs
+     * already being rendered by an overlapping drain are skipped.
+     *
+     * @return the number of jobs completed successfully
+     */
+    public int drain(ForgeClient client, int parallelism, RenderJobHandler handler)
+            throws IOException, InterruptedException {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1");
+        List<Long> ids = pendingIds();
+        AtomicInteger completed = new AtomicInteger();
+        IOException[] writeFailure = new IOException[1];
+        Semaphore slots = new Semaphore(parallelism);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (long id : ids) {
+                slots.acquire();
+                pool.execute(() -> {
+                    try {
+                        if (run(client, id, handler)) completed.incrementAndGet();
+                    } catch (IOException e) {
+                        synchronized (writeFailure) {
+                            if (writeFailure[0] == null) writeFailure[0] = e;
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        if (writeFailure[0] != null) throw writeFailure[0];
+        return completed.get();
+    }
+
+    private boolean run(ForgeClient client, long id, RenderJobHandler handler) throws IOException {
+        byte[] raw = claim(id);
+        if (raw == null) return false;
+        try {
+            return render(client, id, raw, handler);
+        } finally {
+            synchronized (this) {
+                running.remove(id);
+            }
+        }
+    }
+
+    private boolean render(ForgeClient client, long id, byte[] raw, RenderJobHandler handler) throws IOException {
+        JsonObject payload = JsonParser.parseString(new String(raw, StandardCharsets.UTF_8)).getAsJsonObject();
+        RenderResponse response;
+        try {
+            response = client.sendWithResponse(payload, SendOptions.BULK);
+        } catch (ForgeServerException e) {
+            handler.onFailure(id, e);
+            int status = e.getStatusCode();
+            if (status >= 400 && status < 500 && status != 429) finish(id, FAILED);
+            return false;
+        } catch (ForgeException e) {
+            handler.onFailure(id, e);
+            return false;
+        }
+        handler.onSuccess(id, response);
+        finish(id, COMPLETED);
+        return true;
+    }
+
+    /** Read a job's payload and mark it running, or return {@code null} if it finished or another drain has it. */
+    private synchronized byte[] claim(long id) {
+        Job job = pending.get(id);
+        if (job == null || !running.add(id)) return null;
+        byte[] out = new byte[job.length];
+        ByteBuffer b = job.segment.buf.duplicate();
+        b.position(job.offset);
+        b.get(out);
+        return out;
+    }
+
+    private void finish(long id, byte type) throws IOException {
+        long sequence;
+        synchronized (this) {
+            append(type, id, new byte[0]);
+            sequence = appended;
+            Job job = pending.remove(id);
+            if (job != null && --job.segment.live == 0) trimHead();
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Block until the record numbered {@code sequence} is on disk. Whoever gets the force lock
+     * flushes everything appended so far, so writers that queued behind it return without
+     * another flush.
+     */
+    private void awaitDurable(long sequence) {
+        synchronized (forceLock) {
+            if (forced >= sequence) return;
+            Segment segment;
+            long target;
+            synchronized (this) {
+                segment = active;
+                target = appended;
+            }
+            segment.buf.force();
+            forced = target;
+        }
+    }
+
+    /** Delete finished segments from the head of the log, stopping at the first with pending jobs. */
+    private void trimHead() throws IOException {
+        while (!segments.isEmpty()) {
+            Segment head = segments.firstEntry().getValue();
+            if (head == active || head.live > 0) return;
+            delete(head);
+        }
+    }
+
+    /** Append a record to the active segment without flushing it, and return the offset of its payload. */
+    private int append(byte type, long id, byte[] payload) throws IOException {
+        int length = RECORD_HEADER_BYTES + payload.length;
+        if (active.writePos + FRAME_BYTES + length > active.buf.capacity()) {
+            roll(FRAME_BYTES + length);
+        }
+        int pos = active.writePos;
+        ByteBuffer b = active.buf.duplicate();
+        b.position(pos + FRAME_BYTES);
+        b.put(type);
+        b.putLong(id);
+        b.put(payload);
+
+        CRC32 crc = new CRC32();
+        b.position(pos + FRAME_BYTES).limit(pos + FRAME_BYTES + length);
+        crc.update(b);
+        // Length is written last so a torn write never looks like a complete record.
+        active.buf.putInt(pos + 4, (int) crc.getValue());
+        active.buf.putInt(pos, length);
+        active.writePos = pos + FRAME_BYTES + length;
+        appended++;
+        return pos + FRAME_BYTES + RECORD_HEADER_BYTES;
+    }
+
+    private void roll(int minBytes) throws IOException {
+        Segment sealed = active;
+        // Group commit only flushes the active segment; records not yet flushed here must not be left behind.
+        if (sealed != null) sealed.buf.force();
+        int number = sealed == null ? 0 : sealed.number + 1;
+        active = openSegment(number, Math.max(segmentBytes, minBytes));
+        if (sealed != null) trimHead();
+    }
+
+    private Segment openSegment(int number, long size) throws IOException {
+        Path path = dir.resolve(String.format("segment-%08d.log", number));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        Segment segment = new Segment(number, path, channel, buf);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private void delete(Segment segment) throws IOException {
+        segments.remove(segment.number);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    private void recover() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                numbers.add(Integer.parseInt(name.substring(8, name.length() - 4)));
+            }
+        }
+        numbers.sort(null);
+
+        for (int number : numbers) {
+            Segment segment = openSegment(number, 0);
+            segment.writePos = replay(segment);
+            active = segment;
+        }
+
+        if (active == null) {
+            roll(0);
+            return;
+        }
+        // Clear anything after the last valid record in the tail segment.
+        ByteBuffer b = active.buf.duplicate();
+        b.position(active.writePos);
+        while (b.hasRemaining()) b.put((byte) 0);
+        active.buf.force();
+
+        trimHead();
+    }
+
+    /** Replay a segment's records into the pending set and return the end of the last valid record. */
+    private int replay(Segment segment) {
+        ByteBuffer b = segment.buf.duplicate();
+        int capacity = b.capacity();
+        int pos = 0;
+        CRC32 crc = new CRC32();
+        while (pos + FRAME_BYTES + RECORD_HEADER_BYTES <= capacity) {
+            int length = b.getInt(pos);
+            if (length < RECORD_HEADER_BYTES || length > capacity - pos - FRAME_BYTES) break;
+            crc.reset();
+            b.limit(pos + FRAME_BYTES + length).position(pos + FRAME_BYTES);
+            crc.update(b);
+            b.limit(capacity);
+            if ((int) crc.getValue() != b.getInt(pos + 4)) break;
+
+            byte type = b.get(pos + FRAME_BYTES);
+            long id = b.getLong(pos + FRAME_BYTES + 1);
+            if (type == ENQUEUED) {
+                pending.put(id, new Job(segment, pos + FRAME_BYTES + RECORD_HEADER_BYTES,
+                        length - RECORD_HEADER_BYTES));
+                segment.live++;
+            } else {
+                Job job = pending.remove(id);
+                if (job != null) job.segment.live--;
+            }
+            nextId = Math.max(nextId, id + 1);
+            pos += FRAME_BYTES + length;
+        }
+        return pos;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment s : segments.values()) {
+            s.buf.force();
+            s.channel.close();
+        }
+        segments.clear();
+        pending.clear();
+    }
+}
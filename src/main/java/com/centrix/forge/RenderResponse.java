@@ -1,20 +1,46 @@
 package com.centrix.forge;
 
+import java.util.Collections;
 import java.util.List;
 
 /** Response from a render request, including any CSS compatibility warnings. */
 public class RenderResponse {
+    private static final byte[] EMPTY = new byte[0];
+
     private final byte[] data;
     private final List<String> warnings;
+    private final String etag;
+    private final boolean notModified;
 
     public RenderResponse(byte[] data, List<String> warnings) {
+        this(data, warnings, null);
+    }
+
+    public RenderResponse(byte[] data, List<String> warnings, String etag) {
+        this(data, warnings, etag, false);
+    }
+
+    private RenderResponse(byte[] data, List<String> warnings, String etag, boolean notModified) {
         this.data = data;
         this.warnings = warnings;
+        this.etag = etag;
+        this.notModified = notModified;
     }
 
-    /** The rendered output bytes (PDF, PNG, etc.). */
+    /** A 304 answer to a request sent with {@code If-None-Match}. */
+    static RenderResponse notModified(String etag) {
+        return new RenderResponse(EMPTY, Collections.emptyList(), etag, true);
+    }
+
+    /** The rendered output bytes (PDF, PNG, etc.); empty when {@link #isNotModified()}. */
     public byte[] getData() { return data; }
 
     /** CSS compatibility warnings from the Forge server. */
     public List<String> getWarnings() { return warnings; }
+
+    /** The server's {@code ETag} for this output, or {@code null} if it sent none. */
+    public String getETag() { return etag; }
+
+    /** Whether the server answered 304: the output is unchanged since the {@code If-None-Match} ETag. */
+    public boolean isNotModified() { return notModified; }
 }
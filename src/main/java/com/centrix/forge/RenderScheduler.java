@@ -0,0 +1,235 @@
+package com.centrix.forge;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits concurrent requests to the Forge server and decides which waiting request goes next.
+ *
+ * <p>Classes are served in strict {@link Priority} order, so interactive renders jump ahead
+ * of queued bulk work. Within a class, tenants share capacity by weighted fair queuing: each
+ * waiter is stamped with a virtual finish time of {@code max(classClock, tenantLast) + 1/weight}
+ * and the smallest stamp is dispatched first, so a tenant with thousands of queued renders
+ * cannot starve one with a single render.
+ *
+ * <p>Share one scheduler per client via {@link ForgeClient.Builder#scheduler(RenderScheduler)}.
+ */
+public class RenderScheduler {
+    private static final String DEFAULT_TENANT = "";
+
+    private final int maxConcurrent;
+    private final Map<String, Integer> weights = new HashMap<>();
+    private final Map<Priority, ClassQueue> classes = new EnumMap<>(Priority.class);
+    private int inFlight;
+    private long sequence;
+
+    private static class ClassQueue {
+        final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+        final Map<String, Double> tenantLast = new HashMap<>();
+        double clock;
+        long admitted;
+        long totalWaitNanos;
+        long maxWaitNanos;
+    }
+
+    private class Waiter implements Comparable<Waiter> {
+        final Priority priority;
+        final String tenant;
+        final double tag;
+        final long seq;
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<Permit> future = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // Leave the queue before dependents observe the cancellation.
+                withdraw(Waiter.this);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        Waiter(Priority priority, String tenant, double tag, long seq) {
+            this.priority = priority;
+            this.tenant = tenant;
+            this.tag = tag;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            int c = Double.compare(tag, o.tag);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    /** A slot to send one request. Closing it lets the next waiter in. */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {}
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) release();
+        }
+    }
+
+    /** Point-in-time statistics for one priority class. */
+    public static final class ClassStats {
+        private final int queueDepth;
+        private final long admitted;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        ClassStats(int queueDepth, long admitted, long totalWaitNanos, long maxWaitNanos) {
+            this.queueDepth = queueDepth;
+            this.admitted = admitted;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /** Requests currently waiting for a slot. */
+        public int getQueueDepth() { return queueDepth; }
+
+        /** Requests admitted since the scheduler was created. */
+        public long getAdmitted() { return admitted; }
+
+        /** Mean time admitted requests spent waiting. */
+        public Duration getAverageWait() {
+            return Duration.ofNanos(admitted == 0 ? 0 : totalWaitNanos / admitted);
+        }
+
+        /** Longest time an admitted request spent waiting. */
+        public Duration getMaxWait() { return Duration.ofNanos(maxWaitNanos); }
+    }
+
+    /** Create a scheduler that allows at most {@code maxConcurrent} requests in flight. */
+    public RenderScheduler(int maxConcurrent) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        this.maxConcurrent = maxConcurrent;
+        for (Priority p : Priority.values()) classes.put(p, new ClassQueue());
+    }
+
+    /** Give {@code tenant} a larger (or smaller) share of capacity within each class. Default weight is 1. */
+    public synchronized RenderScheduler tenantWeight(String tenant, int weight) {
+        if (weight < 1) throw new IllegalArgumentException("weight must be at least 1");
+        weights.put(tenant, weight);
+        return this;
+    }
+
+    /** Block until a slot is available for a request of the given class and tenant. */
+    public Permit acquire(Priority priority, String tenant) throws InterruptedException {
+        CompletableFuture<Permit> pending = acquireAsync(priority, tenant);
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            abandon(pending);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Block until a slot is available, giving up after {@code maxWait}. */
+    public Permit acquire(Priority priority, String tenant, Duration maxWait)
+            throws InterruptedException, TimeoutException {
+        CompletableFuture<Permit> pending = acquireAsync(priority, tenant);
+        try {
+            return pending.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException | TimeoutException e) {
+            abandon(pending);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Return a future that completes with a slot once one is available. Cancelling the future
+     *  withdraws the request from the queue. */
+    public CompletableFuture<Permit> acquireAsync(Priority priority, String tenant) {
+        String key = tenant == null ? DEFAULT_TENANT : tenant;
+        Waiter w;
+        synchronized (this) {
+            ClassQueue q = classes.get(priority);
+            if (inFlight < maxConcurrent && allEmpty()) {
+                inFlight++;
+                q.admitted++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            double start = Math.max(q.clock, q.tenantLast.getOrDefault(key, 0.0));
+            w = new Waiter(priority, key, start + 1.0 / weights.getOrDefault(key, 1), sequence++);
+            q.tenantLast.put(key, w.tag);
+            q.waiters.add(w);
+        }
+        return w.future;
+    }
+
+    /** Number of requests currently holding a slot. */
+    public synchronized int getInFlight() { return inFlight; }
+
+    /** Statistics for one priority class. */
+    public synchronized ClassStats getStats(Priority priority) {
+        ClassQueue q = classes.get(priority);
+        return new ClassStats(q.waiters.size(), q.admitted, q.totalWaitNanos, q.maxWaitNanos);
+    }
+
+    /** Give up on a pending acquisition, returning the slot if it was granted in the meantime. */
+    static void abandon(CompletableFuture<Permit> pending) {
+        if (!pending.cancel(false)) {
+            Permit granted = pending.getNow(null);
+            if (granted != null) granted.close();
+        }
+    }
+
+    private boolean allEmpty() {
+        for (ClassQueue q : classes.values()) {
+            if (!q.waiters.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private synchronized void withdraw(Waiter w) {
+        classes.get(w.priority).waiters.remove(w);
+    }
+
+    private void release() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            while (inFlight < maxConcurrent) {
+                Waiter next = pollNext();
+                if (next == null) break;
+                inFlight++;
+                granted.add(next);
+            }
+        }
+        // Complete outside the lock so dependent stages cannot run while holding it.
+        for (Waiter w : granted) {
+            if (!w.future.complete(new Permit())) release();
+        }
+    }
+
+    private Waiter pollNext() {
+        for (ClassQueue q : classes.values()) {
+            Waiter w = q.waiters.poll();
+            if (w == null) continue;
+            long waited = System.nanoTime() - w.enqueuedNanos;
+            q.clock = w.tag;
+            if (q.tenantLast.getOrDefault(w.tenant, 0.0) <= q.clock) q.tenantLast.remove(w.tenant);
+            q.admitted++;
+            q.totalWaitNanos += waited;
+            q.maxWaitNanos = Math.max(q.maxWaitNanos, waited);
+            return w;
+        }
+        return null;
+    }
+}
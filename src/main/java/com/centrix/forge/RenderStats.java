@@ -0,0 +1,212 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and byte counters for a client's renders, segmented by output format
+ * and a configurable set of option dimensions.
+ *
+ * <p>A dimension is a dotted path into the request payload, such as {@code "pdf.linearize"},
+ * {@code "quantize.dither"}, {@code "density"} or {@code "pdf.signature.timestamp_url"}. Short
+ * scalar values become part of the segment key; objects, arrays and long strings are recorded
+ * only as {@code set}, so certificates or HTML never end up in a key. Absent options are
+ * recorded as {@code -}.
+ *
+ * <p>Recording takes a concurrent-map lookup and a few atomic increments. Attach to a client
+ * with {@link ForgeClient.Builder#statistics(RenderStats)}, read with {@link #getSegments()},
+ * or publish over JMX with {@link #register(String)}.
+ */
+public class RenderStats implements RenderStatsMXBean {
+    private static final int MAX_KEY_VALUE_LENGTH = 32;
+
+    private final List<String[]> dimensions = new ArrayList<>();
+    private final List<String> dimensionNames;
+    private final ConcurrentMap<String, Segment> segments = new ConcurrentHashMap<>();
+
+    private static class Segment {
+        final LatencyHistogram latencyMicros = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+    }
+
+    /** Statistics for one segment, with latencies in milliseconds. */
+    public static final class SegmentStats {
+        private final String key;
+        private final long requests;
+        private final long errors;
+        private final long bytesSent;
+        private final long bytesReceived;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        SegmentStats(String key, Segment s) {
+            LatencyHistogram h = s.latencyMicros;
+            this.key = key;
+            this.requests = h.getCount();
+            this.errors = s.errors.sum();
+            this.bytesSent = s.bytesSent.sum();
+            this.bytesReceived = s.bytesReceived.sum();
+            this.meanMillis = h.getMean() / 1e3;
+            this.p50Millis = h.getValueAtPercentile(50) / 1e3;
+            this.p90Millis = h.getValueAtPercentile(90) / 1e3;
+            this.p99Millis = h.getValueAtPercentile(99) / 1e3;
+            this.maxMillis = h.getMax() / 1e3;
+        }
+
+        /** Segment key, e.g. {@code format=pdf,pdf.linearize=true}. */
+        public String getKey() { return key; }
+
+        /** Requests recorded, including failures. */
+        public long getRequests() { return requests; }
+
+        /** Requests that failed. */
+        public long getErrors() { return errors; }
+
+        /** Request body bytes uploaded. */
+        public long getBytesSent() { return bytesSent; }
+
+        /** Rendered output bytes received. */
+        public long getBytesReceived() { return bytesReceived; }
+
+        public double getMeanMillis() { return meanMillis; }
+
+        public double getP50Millis() { return p50Millis; }
+
+        public double getP90Millis() { return p90Millis; }
+
+        public double getP99Millis() { return p99Millis; }
+
+        public double getMaxMillis() { return maxMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d requests (%d errors), p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                    key, requests, errors, p50Millis, p99Millis, maxMillis);
+        }
+    }
+
+    /** Segment by output format and by each of the given payload paths. */
+    public RenderStats(String... dimensions) {
+        for (String d : dimensions) this.dimensions.add(d.split("\\."));
+        this.dimensionNames = Collections.unmodifiableList(Arrays.asList(dimensions.clone()));
+    }
+
+    /** The configured option dimensions. */
+    public List<String> getDimensions() {
+        return dimensionNames;
+    }
+
+    @Override
+    public List<SegmentStats> getSegments() {
+        List<SegmentStats> out = new ArrayList<>();
+        for (Map.Entry<String, Segment> e : segments.entrySet()) {
+            out.add(new SegmentStats(e.getKey(), e.getValue()));
+        }
+        out.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+        return out;
+    }
+
+    /** Statistics for one segment key, or {@code null} if nothing was recorded under it. */
+    public SegmentStats getSegment(String key) {
+        Segment s = segments.get(key);
+        return s == null ? null : new SegmentStats(key, s);
+    }
+
+    @Override
+    public long getTotalRequests() {
+        long n = 0;
+        for (Segment s : segments.values()) n += s.latencyMicros.getCount();
+        return n;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long n = 0;
+        for (Segment s : segments.values()) n += s.errors.sum();
+        return n;
+    }
+
+    @Override
+    public void reset() {
+        segments.clear();
+    }
+
+    /** Register as {@code com.centrix.forge:type=RenderStats,name=<name>} on the platform MBean server. */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /** Remove a registration made by {@link #register(String)}. */
+    public void unregister(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = objectName(name);
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("com.centrix.forge:type=RenderStats,name=" + ObjectName.quote(name));
+    }
+
+    /** Segment key for a payload: its format plus the value of each dimension. */
+    String keyFor(JsonObject payload) {
+        StringBuilder key = new StringBuilder("format=");
+        JsonElement format = payload.get("format");
+        key.append(format == null ? "-" : format.getAsString());
+        for (int i = 0; i < dimensions.size(); i++) {
+            key.append(',').append(dimensionNames.get(i)).append('=').append(valueAt(payload, dimensions.get(i)));
+        }
+        return key.toString();
+    }
+
+    private static String valueAt(JsonObject payload, String[] path) {
+        JsonElement e = payload;
+        for (String part : path) {
+            if (!e.isJsonObject()) return "-";
+            e = e.getAsJsonObject().get(part);
+            if (e == null || e.isJsonNull()) return "-";
+        }
+        if (e.isJsonPrimitive()) {
+            JsonPrimitive p = e.getAsJsonPrimitive();
+            String v = p.getAsString();
+            if (!p.isString() || v.length() <= MAX_KEY_VALUE_LENGTH) return v;
+        }
+        return "set";
+    }
+
+    /** Record a successful render. */
+    void recordSuccess(String key, long elapsedNanos, long bytesSent, long bytesReceived) {
+        Segment s = segments.computeIfAbsent(key, k -> new Segment());
+        s.latencyMicros.record(elapsedNanos / 1000);
+        s.bytesSent.add(bytesSent);
+        s.bytesReceived.add(bytesReceived);
+    }
+
+    /** Record a failed render. */
+    void recordError(String key, long elapsedNanos, long bytesSent) {
+        Segment s = segments.computeIfAbsent(key, k -> new Segment());
+        s.latencyMicros.record(elapsedNanos / 1000);
+        s.errors.increment();
+        s.bytesSent.add(bytesSent);
+    }
+}
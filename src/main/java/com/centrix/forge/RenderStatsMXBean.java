@@ -0,0 +1,18 @@
+package com.centrix.forge;
+
+import java.util.List;
+
+/** JMX view of a {@link RenderStats}. */
+public interface RenderStatsMXBean {
+    /** Per-segment statistics, one entry per output format and option combination seen. */
+    List<RenderStats.SegmentStats> getSegments();
+
+    /** Requests recorded across all segments. */
+    long getTotalRequests();
+
+    /** Failed requests across all segments. */
+    long getTotalErrors();
+
+    /** Discard everything recorded so far. */
+    void reset();
+}
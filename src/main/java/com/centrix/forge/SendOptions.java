@@ -0,0 +1,32 @@
+package com.centrix.forge;
+
+import java.time.Instant;
+
+/** Client-side options that shape how a payload is sent but are not part of it. */
+final class SendOptions {
+    static final SendOptions BULK = new SendOptions(Priority.BULK, null, null);
+
+    final Priority priority;
+    final String tenant;
+    final Instant deadline;
+    /** ETag of the output the caller already holds; a 304 then yields a not-modified response. */
+    final String ifNoneMatch;
+    /** Idempotency key chosen upstream of this client, e.g. by a gateway caller; sent instead of our own. */
+    final String idempotencyKey;
+
+    SendOptions(Priority priority, String tenant, Instant deadline) {
+        this(priority, tenant, deadline, null);
+    }
+
+    SendOptions(Priority priority, String tenant, Instant deadline, String ifNoneMatch) {
+        this(priority, tenant, deadline, ifNoneMatch, null);
+    }
+
+    SendOptions(Priority priority, String tenant, Instant deadline, String ifNoneMatch, String idempotencyKey) {
+        this.priority = priority;
+        this.tenant = tenant;
+        this.deadline = deadline;
+        this.ifNoneMatch = ifNoneMatch;
+        this.idempotencyKey = idempotencyKey;
+    }
+}
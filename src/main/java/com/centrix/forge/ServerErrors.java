@@ -0,0 +1,172 @@
+package com.centrix.forge;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Decodes non-200 responses into {@link ForgeServerException}s without buffering
+ * arbitrarily large error pages: at most {@link #MAX_BODY_BYTES} are read, and only
+ * the top-level {@code error} string is extracted.
+ */
+final class ServerErrors {
+    /** Error bodies beyond this size are truncated; the {@code error} field comes first in practice. */
+    static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private ServerErrors() {}
+
+    /**
+     * Wrap {@code success} so that a non-200 response reads at most {@link #MAX_BODY_BYTES}
+     * of its body, then releases the connection.
+     */
+    static HttpResponse.BodyHandler<byte[]> capped(HttpResponse.BodyHandler<byte[]> success) {
+        return info -> info.statusCode() == 200 ? success.apply(info) : new CappedSubscriber(MAX_BODY_BYTES);
+    }
+
+    /** Exception for a complete HTTP response whose body was read with {@link #capped}. */
+    static ForgeServerException of(HttpResponse<byte[]> resp) {
+        return of(resp.statusCode(), resp.headers(), new ByteArrayInputStream(resp.body()));
+    }
+
+    /** Exception for a response whose body is still unread; reads at most {@link #MAX_BODY_BYTES}. */
+    static ForgeServerException of(int statusCode, HttpHeaders headers, InputStream body) {
+        return new ForgeServerException(statusCode, errorMessage(statusCode, body),
+                retryAfter(headers), headers.firstValue("X-Request-Id").orElse(null));
+    }
+
+    /** Exception for a batch item's error body, which carries no headers. */
+    static ForgeServerException of(int statusCode, byte[] body) {
+        return new ForgeServerException(statusCode, errorMessage(statusCode, new ByteArrayInputStream(body)));
+    }
+
+    /** The top-level {@code error} string of a UTF-8 JSON body, or {@code "HTTP <status>"}. */
+    static String errorMessage(int statusCode, InputStream body) {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new LimitedInputStream(body, MAX_BODY_BYTES), StandardCharsets.UTF_8))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) return "HTTP " + statusCode;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("error") && reader.peek() == JsonToken.STRING) {
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Not JSON, or truncated before the error field.
+        }
+        return "HTTP " + statusCode;
+    }
+
+    /** {@code Retry-After} as delta-seconds or an HTTP-date; {@code null} if absent or malformed. */
+    static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.firstValue("Retry-After").orElse(null);
+        if (value == null) return null;
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds < 0 ? null : Duration.ofSeconds(seconds);
+        } catch (NumberFormatException e) {
+            // Fall through to the date form.
+        }
+        try {
+            Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration d = Duration.between(Instant.now(), at);
+            return d.isNegative() ? Duration.ZERO : d;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** Collects up to {@code limit} bytes, then cancels the rest of the body. */
+    private static final class CappedSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int limit;
+        private Flow.Subscription subscription;
+
+        CappedSubscriber(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (result.isDone()) return;
+            for (ByteBuffer b : buffers) {
+                int n = Math.min(b.remaining(), limit - out.size());
+                byte[] chunk = new byte[n];
+                b.get(chunk);
+                out.write(chunk, 0, n);
+            }
+            if (out.size() >= limit) {
+                result.complete(out.toByteArray());
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            result.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(out.toByteArray());
+        }
+    }
+
+    /** Reports end of stream after {@code limit} bytes; closing does not close the source. */
+    private static final class LimitedInputStream extends InputStream {
+        private final InputStream in;
+        private int left;
+
+        LimitedInputStream(InputStream in, int limit) {
+            this.in = in;
+            this.left = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (left == 0) return -1;
+            int b = in.read();
+            if (b >= 0) left--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            if (left == 0) return -1;
+            int n = in.read(buf, off, Math.min(len, left));
+            if (n > 0) left -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.centrix.forge;
+
+import java.time.Duration;
+
+/** Outcome of {@link ForgeClient#warmUp(int)}. */
+public class WarmUpResult {
+    private final int requested;
+    private final int opened;
+    private final Duration elapsed;
+
+    WarmUpResult(int requested, int opened, Duration elapsed) {
+        this.requested = requested;
+        this.opened = opened;
+        this.elapsed = elapsed;
+    }
+
+    /** Whether every warm-up health check succeeded. */
+    public boolean isReady() { return requested > 0 ? opened == requested : true; }
+
+    /** Connections requested. */
+    public int getConnectionsRequested() { return requested; }
+
+    /** Health checks that succeeded, each on its own pooled connection. */
+    public int getConnectionsOpened() { return opened; }
+
+    /** Time the warm-up took. */
+    public Duration getElapsed() { return elapsed; }
+}
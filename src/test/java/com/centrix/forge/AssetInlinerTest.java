@@ -0,0 +1,177 @@
+package com.centrix.forge;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class AssetInlinerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = tmp.newFolder("templates").toPath();
+        Files.createDirectories(dir.resolve("fonts"));
+        Files.write(dir.resolve("logo.png"), new byte[]{1, 2, 3});
+        Files.write(dir.resolve("fonts/brand.woff2"), new byte[]{4, 5});
+        Files.write(dir.resolve("style.css"),
+                "body{font-family:x} @font-face{src:url('fonts/brand.woff2')}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String dataUri(String mime, byte[] data) {
+        return "data:" + mime + ";base64," + Base64.getEncoder().encodeToString(data);
+    }
+
+    @Test
+    public void inlinesLocalReferences() {
+        String html = "<link rel=\"stylesheet\" href=\"style.css\">"
+                + "<img src='logo.png?v=2' alt=\"logo\">"
+                + "<div style=\"background:url(/logo.png)\"></div>"
+                + "<a href=\"logo.png\">download</a>"
+                + "<img src=\"https://cdn.example.com/x.png\">"
+                + "<img src=\"missing.png\">";
+
+        String out = new AssetInliner(dir).inline(html);
+
+        String logo = dataUri("image/png", new byte[]{1, 2, 3});
+        String css = dataUri("text/css", ("body{font-family:x} @font-face{src:url(\""
+                + dataUri("font/woff2", new byte[]{4, 5}) + "\")}").getBytes(StandardCharsets.UTF_8));
+        assertTrue(out.contains("href=\"" + css + "\""));
+        assertTrue(out.contains("src='" + logo + "'"));
+        assertTrue(out.contains("background:url('" + logo + "')"));
+        assertTrue(out.contains("<a href=\"logo.png\">"));
+        assertTrue(out.contains("src=\"https://cdn.example.com/x.png\""));
+        assertTrue(out.contains("src=\"missing.png\""));
+    }
+
+    @Test
+    public void repeatedAssetsAreResolvedOncePerDocument() {
+        AssetInliner inliner = new AssetInliner(dir);
+        inliner.inline("<img src=\"logo.png\"><img src=\"./logo.png\"><img src=\"logo.png\">");
+        assertEquals(1, inliner.getMisses());
+        assertEquals(0, inliner.getHits());
+    }
+
+    @Test
+    public void laterDocumentsHitTheCache() {
+        AssetInliner inliner = new AssetInliner(dir);
+        String first = inliner.inline("<img src=\"logo.png\">");
+        String second = inliner.inline("<img src=\"logo.png\">");
+        assertEquals(first, second);
+        assertEquals(1, inliner.getMisses());
+        assertEquals(1, inliner.getHits());
+    }
+
+    @Test
+    public void changedFileIsReRead() throws Exception {
+        AssetInliner inliner = new AssetInliner(dir);
+        inliner.inline("<img src=\"logo.png\">");
+        Files.write(dir.resolve("logo.png"), new byte[]{9, 9, 9, 9});
+        Files.setLastModifiedTime(dir.resolve("logo.png"), FileTime.fromMillis(0));
+
+        String out = inliner.inline("<img src=\"logo.png\">");
+        assertTrue(out.contains(dataUri("image/png", new byte[]{9, 9, 9, 9})));
+        assertEquals(2, inliner.getMisses());
+    }
+
+    @Test
+    public void stylesheetIsReInlinedWhenANestedAssetChanges() throws Exception {
+        AssetInliner inliner = new AssetInliner(dir);
+        String html = "<link rel=\"stylesheet\" href=\"style.css\">";
+        inliner.inline(html);
+        Files.write(dir.resolve("fonts/brand.woff2"), new byte[]{6, 7, 8});
+        Files.setLastModifiedTime(dir.resolve("fonts/brand.woff2"), FileTime.fromMillis(0));
+
+        String out = inliner.inline(html);
+        String css = dataUri("text/css", ("body{font-family:x} @font-face{src:url(\""
+                + dataUri("font/woff2", new byte[]{6, 7, 8}) + "\")}").getBytes(StandardCharsets.UTF_8));
+        assertTrue(out.contains("href=\"" + css + "\""));
+
+        assertEquals(out, inliner.inline(html));
+        assertEquals(4, inliner.getMisses());
+        assertEquals(1, inliner.getHits());
+    }
+
+    @Test
+    public void cacheIsSizeBounded() throws Exception {
+        Files.write(dir.resolve("big.png"), new byte[300]);
+        AssetInliner inliner = new AssetInliner(dir, 450);
+        inliner.inline("<img src=\"big.png\">");
+        inliner.inline("<img src=\"logo.png\">");
+        assertTrue(inliner.getCachedBytes() <= 450);
+    }
+
+    @Test
+    public void repeatedCssAssetsAreEmittedOnce() {
+        String html = "<html><head><title>labels</title></head><body>"
+                + "<div style=\"background:url(logo.png)\"></div>"
+                + "<div style='background:url(logo.png)'></div>"
+                + "<style>.label{background-image:url(\"logo.png\")}</style></body></html>";
+
+        String out = new AssetInliner(dir).inline(html);
+
+        String logo = dataUri("image/png", new byte[]{1, 2, 3});
+        assertEquals(out.indexOf(logo), out.lastIndexOf(logo));
+        assertTrue(out.startsWith("<html><head><style>:root{--forge-asset-1:url(\"" + logo + "\");}</style><title>"));
+        assertTrue(out.contains("<div style=\"background:var(--forge-asset-1)\">"));
+        assertTrue(out.contains("<div style='background:var(--forge-asset-1)'>"));
+        assertTrue(out.contains(".label{background-image:var(--forge-asset-1)}"));
+    }
+
+    @Test
+    public void fontFaceSourcesAreNotShared() {
+        String html = "<style>@font-face{src:url(fonts/brand.woff2)} p{background:url(fonts/brand.woff2)}</style>";
+        String out = new AssetInliner(dir).inline(html);
+        assertTrue(out.startsWith("<style>@font-face{src:url(\"" + dataUri("font/woff2", new byte[]{4, 5}) + "\")}"));
+    }
+
+    @Test
+    public void onlyCssContextsAndAssetAttributesAreRewritten() {
+        String html = "<p>Use url(logo.png) in CSS.</p>"
+                + "<script>const css = 'url(logo.png)';</script>"
+                + "<!-- <img src=\"logo.png\"> -->"
+                + "<img data-src=\"logo.png\">";
+        assertEquals(html, new AssetInliner(dir).inline(html));
+    }
+
+    @Test
+    public void classpathReferencesNeedAnOptInRoot() {
+        String html = "<img src=\"classpath:com/centrix/forge/AssetInliner.class\">";
+        assertEquals(html, new AssetInliner(dir).inline(html));
+        assertEquals(html, new AssetInliner(dir, AssetInliner.DEFAULT_MAX_CACHE_BYTES, "templates/").inline(html));
+        assertEquals("<img src=\"classpath:com/centrix/forge/../../../META-INF/x\">",
+                new AssetInliner(dir, AssetInliner.DEFAULT_MAX_CACHE_BYTES, "com/centrix/forge")
+                        .inline("<img src=\"classpath:com/centrix/forge/../../../META-INF/x\">"));
+
+        String out = new AssetInliner(dir, AssetInliner.DEFAULT_MAX_CACHE_BYTES, "com/centrix/forge").inline(html);
+        assertTrue(out.startsWith("<img src=\"data:application/octet-stream;base64,"));
+    }
+
+    @Test
+    public void filesOutsideBaseDirAreNotRead() throws Exception {
+        Files.write(tmp.getRoot().toPath().resolve("secret.txt"), new byte[]{7});
+        String html = "<img src=\"../secret.txt\">";
+        assertEquals(html, new AssetInliner(dir).inline(html));
+    }
+
+    @Test
+    public void clientInlinesRenderHtmlInput() {
+        ForgeClient client = ForgeClient.builder("http://localhost:8080")
+                .assetInliner(new AssetInliner(dir))
+                .build();
+        String html = client.renderHtml("<img src=\"logo.png\">").buildPayload().get("html").getAsString();
+        assertEquals("<img src=\"" + dataUri("image/png", new byte[]{1, 2, 3}) + "\">", html);
+    }
+}
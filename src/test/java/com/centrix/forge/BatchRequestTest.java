@@ -0,0 +1,74 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchRequestTest {
+
+    private StubForgeServer server;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        client = new ForgeClient(server.url());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void resultsAreReturnedInSubmissionOrder() throws Exception {
+        List<BatchResult> results = client.batch()
+                .add(client.renderHtml("label-1").format(OutputFormat.PDF))
+                .add(client.renderHtml("label-2").format(OutputFormat.PNG))
+                .add(client.renderHtml("label-3"))
+                .send();
+
+        assertEquals(3, results.size());
+        assertEquals("pdf:label-1", new String(results.get(0).get().getData(), StandardCharsets.UTF_8));
+        assertEquals("png:label-2", new String(results.get(1).get().getData(), StandardCharsets.UTF_8));
+        assertEquals("pdf:label-3", new String(results.get(2).get().getData(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void perItemErrorsDoNotFailTheBatch() throws Exception {
+        List<BatchResult> results = client.batch()
+                .add(client.renderHtml("ok"))
+                .add(client.renderHtml("fail"))
+                .send();
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).getResponse());
+        assertEquals(422, results.get(1).getError().getStatusCode());
+        assertTrue(results.get(1).getError().getMessage().contains("cannot render"));
+    }
+
+    @Test
+    public void streamingHandlerReceivesFramesAsTheyArrive() throws Exception {
+        List<Integer> order = new ArrayList<>();
+        client.batch()
+                .add(client.renderHtml("a"))
+                .add(client.renderHtml("b"))
+                .add(client.renderHtml("c"))
+                .send(r -> order.add(r.getIndex()));
+
+        // The stub emits frames in reverse order.
+        assertEquals(List.of(2, 1, 0), order);
+    }
+
+    @Test
+    public void emptyBatch() throws Exception {
+        assertTrue(client.batch().send().isEmpty());
+    }
+}
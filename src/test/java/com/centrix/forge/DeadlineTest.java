@@ -0,0 +1,110 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+public class DeadlineTest {
+
+    private StubForgeServer server;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        client = new ForgeClient(server.url());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void serverTimeoutIsCappedAtRemainingBudget() throws Exception {
+        client.renderHtml("ok").timeout(60).deadline(Duration.ofSeconds(10)).send();
+        long sent = server.lastPayload().get("timeout").getAsLong();
+        assertTrue("timeout " + sent, sent >= 9 && sent <= 10);
+    }
+
+    @Test
+    public void shorterExplicitTimeoutIsKept() throws Exception {
+        client.renderHtml("ok").timeout(5).deadline(Duration.ofSeconds(30)).send();
+        assertEquals(5, server.lastPayload().get("timeout").getAsLong());
+    }
+
+    @Test
+    public void resentBatchKeepsItsOwnTimeout() throws Exception {
+        ForgeClient.BatchRequestBuilder batch = client.batch().add(client.renderHtml("ok").timeout(60));
+        batch.deadline(Duration.ofSeconds(3)).send();
+        assertTrue(server.lastPayload().get("timeout").getAsLong() <= 3);
+
+        batch.deadline((Instant) null).send();
+        assertEquals(60, server.lastPayload().get("timeout").getAsLong());
+    }
+
+    @Test
+    public void noDeadlineLeavesPayloadUnchanged() throws Exception {
+        client.renderHtml("ok").send();
+        assertFalse(server.lastPayload().has("timeout"));
+    }
+
+    @Test(timeout = 5000)
+    public void slowResponseHeadersHitDeadline() throws Exception {
+        try {
+            client.renderHtml("delay:3000").deadline(Duration.ofMillis(200)).send();
+            fail("expected ForgeTimeoutException");
+        } catch (ForgeTimeoutException e) {
+            assertTrue(e.getMessage().startsWith("deadline exceeded"));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void stalledDownloadIsCancelled() throws Exception {
+        long start = System.nanoTime();
+        try {
+            client.renderHtml("stall:3000").deadline(Duration.ofMillis(300)).send();
+            fail("expected ForgeTimeoutException");
+        } catch (ForgeTimeoutException e) {
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2000);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void asyncSendHonoursDeadline() {
+        try {
+            client.renderHtml("stall:3000").deadline(Duration.ofMillis(300)).sendAsync().join();
+            fail("expected CompletionException");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ForgeTimeoutException);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void queueingCountsAgainstDeadline() throws Exception {
+        RenderScheduler scheduler = new RenderScheduler(1);
+        ForgeClient scheduled = ForgeClient.builder(server.url()).scheduler(scheduler).build();
+        RenderScheduler.Permit busy = scheduler.acquire(Priority.BULK, null);
+        try {
+            scheduled.renderHtml("ok").deadline(Duration.ofMillis(100)).send();
+            fail("expected ForgeTimeoutException");
+        } catch (ForgeTimeoutException e) {
+            assertTrue(e.getMessage().contains("scheduler slot"));
+        }
+        try {
+            scheduled.renderHtml("ok").deadline(Duration.ofMillis(100)).sendAsync().join();
+            fail("expected CompletionException");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ForgeTimeoutException);
+        }
+        assertEquals(0, scheduler.getStats(Priority.NORMAL).getQueueDepth());
+        busy.close();
+        assertEquals(0, scheduler.getInFlight());
+    }
+}
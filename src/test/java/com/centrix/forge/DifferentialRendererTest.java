@@ -0,0 +1,92 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DifferentialRendererTest {
+
+    private StubForgeServer server;
+    private ForgeClient client;
+    private DifferentialRenderer renderer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        client = new ForgeClient(server.url());
+        renderer = new DifferentialRenderer(64, 64);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void firstRenderIsAFullFrame() throws Exception {
+        FrameUpdate update = renderer.render("lobby", client.renderHtml("raster:200x100"));
+        assertTrue(update.isFullFrame());
+        assertFalse(update.isNotModified());
+        assertEquals(4 * 2, update.getChangedTiles().size());
+        FrameUpdate.Tile last = update.getChangedTiles().get(7);
+        assertEquals(192, last.getX());
+        assertEquals(64, last.getY());
+        assertEquals(8, last.getPixels().getWidth());
+        assertEquals(36, last.getPixels().getHeight());
+    }
+
+    @Test
+    public void unchangedOutputIsNotModified() throws Exception {
+        FrameUpdate first = renderer.render("lobby", client.renderHtml("raster:200x100"));
+        FrameUpdate second = renderer.render("lobby", client.renderHtml("raster:200x100"));
+        assertTrue(second.isNotModified());
+        assertTrue(second.isUnchanged());
+        assertSame(first.getFrame(), second.getFrame());
+    }
+
+    @Test
+    public void onlyChangedTilesAreEmitted() throws Exception {
+        renderer.render("lobby", client.renderHtml("raster:200x100"));
+        FrameUpdate update = renderer.render("lobby", client.renderHtml("raster:200x100+130,70"));
+        assertFalse(update.isFullFrame());
+        assertFalse(update.isNotModified());
+        assertEquals(1, update.getChangedTiles().size());
+        FrameUpdate.Tile tile = update.getChangedTiles().get(0);
+        assertEquals(128, tile.getX());
+        assertEquals(64, tile.getY());
+        assertEquals(0xffffffff, tile.getPixels().getPixel(2, 6));
+        assertEquals(0xffffffff, update.getFrame().getPixel(130, 70));
+    }
+
+    @Test
+    public void pixelComparisonWorksWithoutETags() throws Exception {
+        server.etags(false);
+        renderer.render("lobby", client.renderHtml("raster:200x100"));
+        FrameUpdate same = renderer.render("lobby", client.renderHtml("raster:200x100"));
+        assertFalse(same.isNotModified());
+        assertTrue(same.isUnchanged());
+        FrameUpdate dot = renderer.render("lobby", client.renderHtml("raster:200x100+5,5"));
+        assertEquals(1, dot.getChangedTiles().size());
+    }
+
+    @Test
+    public void keysAndSizesAreTrackedSeparately() throws Exception {
+        renderer.render("lobby", client.renderHtml("raster:200x100"));
+        assertTrue(renderer.render("kitchen", client.renderHtml("raster:200x100")).isFullFrame());
+        assertTrue(renderer.render("lobby", client.renderHtml("raster:100x100")).isFullFrame());
+        renderer.forget("kitchen");
+        assertTrue(renderer.render("kitchen", client.renderHtml("raster:200x100")).isFullFrame());
+    }
+
+    @Test
+    public void ifNoneMatchIsExposedOnPlainRenders() throws Exception {
+        RenderResponse first = client.renderHtml("hello").sendResponse();
+        assertNotNull(first.getETag());
+        RenderResponse second = client.renderHtml("hello").ifNoneMatch(first.getETag()).sendResponse();
+        assertTrue(second.isNotModified());
+        assertEquals(0, second.getData().length);
+        assertTrue(client.renderHtml("hello").ifNoneMatch(first.getETag()).sendAsync().join().isNotModified());
+    }
+}
@@ -0,0 +1,90 @@
+package com.centrix.forge;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ForgeCliTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    private int run(String stdin, String... args) {
+        return ForgeCli.run(args, new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)),
+                stdout, new PrintStream(stderr, true));
+    }
+
+    @Test
+    public void rendersToFile() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            Path out = tmp.getRoot().toPath().resolve("page.png");
+            int code = run("", "render", "--server", server.url(), "--html", "hello",
+                    "--format", "png", "--width", "800", "--out", out.toString());
+            assertEquals(stderr.toString(), 0, code);
+            assertEquals("png:hello", Files.readString(out));
+            assertEquals(800, server.lastPayload().get("width").getAsInt());
+        }
+    }
+
+    @Test
+    public void rendersStdinToStdout() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            assertEquals(0, run("<p>piped</p>", "render", "--server", server.url(), "--html-file", "-"));
+            assertEquals("pdf:<p>piped</p>", stdout.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void dryRunPrintsThePayload() {
+        assertEquals(0, run("", "render", "--html", "<b>x</b>", "--paper", "a4", "--orientation", "landscape", "--dry-run"));
+        JsonObject payload = JsonParser.parseString(stdout.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals("<b>x</b>", payload.get("html").getAsString());
+        assertEquals("landscape", payload.get("orientation").getAsString());
+    }
+
+    @Test
+    public void usageErrorsExitWithTwo() {
+        assertEquals(2, run(""));
+        assertEquals(2, run("", "render", "--paper", "a4"));
+        assertEquals(2, run("", "render", "--html", "x", "--bogus"));
+        assertEquals(2, run("", "render", "--html", "x", "--width"));
+        assertEquals(2, run("", "render", "--html", "x", "--width", "-5", "--dry-run"));
+        assertTrue(stderr.toString().contains("usage: forge render"));
+    }
+
+    @Test
+    public void failuresExitWithOne() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            assertEquals(1, run("", "render", "--server", server.url(), "--html", "fail"));
+            assertTrue(stderr.toString().contains("cannot render"));
+            assertEquals(0, run("", "health", "--server", server.url()));
+        }
+        assertEquals(1, run("", "health", "--server", "http://127.0.0.1:9"));
+    }
+
+    @Test
+    public void serializationMatchesGson() {
+        JsonObject payload = new ForgeClient("http://localhost:3000")
+                .renderHtml("<p class=\"a\">O'Brien & <Co>   café</p>")
+                .density(96.0).pdfTitle("t").pdfBarcode(BarcodeType.QR, "x")
+                .buildPayload();
+        String expected = new Gson().toJson(payload);
+        assertEquals(expected, new String(JsonOutput.toBytes(payload), StandardCharsets.UTF_8));
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, PayloadSize.of(payload));
+    }
+}
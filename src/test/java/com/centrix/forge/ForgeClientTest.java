@@ -1,9 +1,13 @@
 package com.centrix.forge;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class ForgeClientTest {
@@ -353,4 +357,116 @@ public class ForgeClientTest {
         assertEquals("basic", pdf.get("accessibility").getAsString());
         assertTrue(pdf.get("linearize").getAsBoolean());
     }
+
+    // --- Pre-flight validation ---
+
+    @Test
+    public void validRequestPassesValidation() throws Exception {
+        client().renderHtml("<h1>Test</h1>")
+                .paper("A4")
+                .margins("10,10,10,10")
+                .pdfAccessibility(AccessibilityLevel.PDF_UA_1)
+                .pdfLang("en-US")
+                .validate();
+        client().renderUrl("https://example.com")
+                .format(OutputFormat.PNG)
+                .margins("narrow")
+                .palette(Palette.EINK)
+                .colors(16)
+                .validate();
+    }
+
+    @Test
+    public void validationReportsEveryProblem() {
+        try {
+            client().renderHtml("<h1>Test</h1>")
+                    .paper("a11")
+                    .margins("10,10")
+                    .dither(DitherMethod.ATKINSON)
+                    .pdfAccessibility(AccessibilityLevel.PDF_UA_1)
+                    .pdfAttach("data.xml", "PGE+PC9hPg==")
+                    .pdfSignReason("approval")
+                    .validate();
+            fail("expected ForgeValidationException");
+        } catch (ForgeValidationException e) {
+            assertEquals(6, e.getProblems().size());
+            assertTrue(e.getMessage().contains("unknown paper size \"a11\""));
+            assertTrue(e.getMessage().contains("PDF/UA-1 accessibility requires pdfLang"));
+        }
+    }
+
+    @Test
+    public void validateRejectsNonFiniteNumbers() {
+        try {
+            client().renderHtml("<h1>Test</h1>")
+                    .density(Double.POSITIVE_INFINITY)
+                    .margins("10,Infinity,10,10")
+                    .pdfWatermarkOpacity(Double.NaN)
+                    .pdfWatermarkScale(Double.NaN)
+                    .pdfWatermarkRotation(Double.NaN)
+                    .pdfWatermarkFontSize(Double.POSITIVE_INFINITY)
+                    .validate();
+            fail("expected ForgeValidationException");
+        } catch (ForgeValidationException e) {
+            assertEquals(6, e.getProblems().size());
+            assertTrue(e.getMessage().contains("pdfWatermarkOpacity must be between 0.0 and 1.0"));
+        }
+    }
+
+    @Test
+    public void sendValidatesBeforeConnecting() {
+        // Nothing listens on this port; a validation failure proves no request was attempted.
+        ForgeClient offline = new ForgeClient("http://127.0.0.1:9");
+        try {
+            offline.renderHtml("<h1>Test</h1>").format(OutputFormat.PNG).colors(1).send();
+            fail("expected ForgeValidationException");
+        } catch (ForgeValidationException e) {
+            assertEquals(List.of("colors must be between 2 and 256"), e.getProblems());
+        } catch (ForgeException e) {
+            fail("request was sent: " + e);
+        }
+    }
+
+    @Test
+    public void oversizedPayloadIsRejectedLocally() {
+        ForgeClient limited = ForgeClient.builder("http://127.0.0.1:9").maxPayloadBytes(100).build();
+        try {
+            limited.renderHtml("x".repeat(200)).send();
+            fail("expected ForgeValidationException");
+        } catch (ForgeValidationException e) {
+            assertTrue(e.getMessage().contains("byte limit"));
+        } catch (ForgeException e) {
+            fail("request was sent: " + e);
+        }
+    }
+
+    @Test
+    public void estimatedPayloadBytesMatchesSerializedSize() {
+        ForgeClient.RenderRequestBuilder req = client()
+                .renderHtml("<p class='a'>\"Grüße\" & 日本 \uD83D\uDE00\n\t\u0001\u2028</p>")
+                .format(OutputFormat.PNG)
+                .width(1280)
+                .density(2.5)
+                .customPalette(List.of("#000000", "#ffffff"))
+                .pdfBookmarks(true)
+                .pdfBarcode(BarcodeType.QR, "https://example.com/?a=1&b=2", 10.0, null, null, null,
+                        BarcodeAnchor.TOP_LEFT, null, null, false, null);
+
+        int actual = new Gson().toJson(req.buildPayload()).getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(actual, req.estimatedPayloadBytes());
+    }
+
+    @Test
+    public void estimatedPayloadBytesSkipsNullMembers() {
+        ForgeClient.RenderRequestBuilder req = client().renderHtml("<p>x</p>")
+                .pdfStandard(PdfStandard.A3B)
+                .pdfAttach("a.xml", null);
+        assertEquals(JsonOutput.toBytes(req.buildPayload()).length, req.estimatedPayloadBytes());
+        try {
+            req.validate();
+            fail("expected ForgeValidationException");
+        } catch (ForgeValidationException e) {
+            assertEquals(List.of("embedded files require a path and data"), e.getProblems());
+        }
+    }
 }
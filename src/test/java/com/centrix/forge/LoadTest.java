@@ -0,0 +1,272 @@
+package com.centrix.forge;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for the Forge client's sync, async and batch send paths.
+ *
+ * <p>Runs against an embedded {@link LoadTestServer} unless {@code --target} points at a real
+ * server, and reports throughput, a latency histogram and client resource usage. With the
+ * embedded server, CPU and GC figures include the server, which shares the JVM.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--mode async --requests 20000 --concurrency 64"
+ * </pre>
+ */
+public class LoadTest {
+
+    static class Options {
+        String mode = "sync";
+        int requests = 10_000;
+        int warmup = 500;
+        int concurrency = 16;
+        int batchSize = 50;
+        String latency = "lognormal:20,0.5";
+        double errorRate = 0;
+        int responseBytes = 3 * 1024;
+        int serverMaxConcurrent = Integer.MAX_VALUE;
+        String target;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                switch (args[i]) {
+                    case "--mode": o.mode = value; break;
+                    case "--requests": o.requests = Integer.parseInt(value); break;
+                    case "--warmup": o.warmup = Integer.parseInt(value); break;
+                    case "--concurrency": o.concurrency = Integer.parseInt(value); break;
+                    case "--batch-size": o.batchSize = Integer.parseInt(value); break;
+                    case "--latency": o.latency = value; break;
+                    case "--error-rate": o.errorRate = Double.parseDouble(value); break;
+                    case "--response-bytes": o.responseBytes = Integer.parseInt(value); break;
+                    case "--server-max-concurrent": o.serverMaxConcurrent = Integer.parseInt(value); break;
+                    case "--target": o.target = value; break;
+                    case "--help":
+                        usage();
+                        System.exit(0);
+                        break;
+                    default:
+                        usage();
+                        throw new IllegalArgumentException("unknown option: " + args[i]);
+                }
+                i++;
+            }
+            if (!List.of("sync", "async", "batch").contains(o.mode)) {
+                throw new IllegalArgumentException("--mode must be sync, async or batch");
+            }
+            return o;
+        }
+
+        static void usage() {
+            System.err.println("options: --mode sync|async|batch  --requests N  --warmup N  --concurrency N\n"
+                    + "         --batch-size N  --latency fixed:MS|uniform:MIN-MAX|lognormal:MEDIAN,SIGMA\n"
+                    + "         --error-rate 0..1  --response-bytes N  --server-max-concurrent N  --target URL");
+        }
+    }
+
+    static class Report {
+        final Options options;
+        final LatencyHistogram latencyMicros = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+        final LongAdder connectionErrors = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        long elapsedNanos;
+        long cpuNanos;
+        long gcCount;
+        long gcMillis;
+        int peakThreads;
+        long heapUsed;
+
+        Report(Options options) {
+            this.options = options;
+        }
+
+        void recordError(Throwable t) {
+            if (t instanceof ForgeServerException && ((ForgeServerException) t).getStatusCode() == 429) {
+                throttled.increment();
+            } else if (t instanceof ForgeServerException) {
+                serverErrors.increment();
+            } else {
+                connectionErrors.increment();
+            }
+        }
+
+        long completed() {
+            return ok.sum() + serverErrors.sum() + throttled.sum() + connectionErrors.sum();
+        }
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf(Locale.ROOT, "mode=%s requests=%d concurrency=%d%s target=%s%n",
+                    options.mode, options.requests, options.concurrency,
+                    options.mode.equals("batch") ? " batch-size=" + options.batchSize : "",
+                    options.target == null ? "embedded (" + options.latency + ")" : options.target);
+            System.out.printf(Locale.ROOT, "throughput  %.1f renders/s over %.2f s, %.1f MB received%n",
+                    completed() / seconds, seconds, bytes.sum() / 1e6);
+            System.out.printf(Locale.ROOT, "outcomes    ok=%d server-error=%d throttled=%d connection-error=%d%n",
+                    ok.sum(), serverErrors.sum(), throttled.sum(), connectionErrors.sum());
+            System.out.printf(Locale.ROOT, "latency ms  p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f mean=%.2f (per %s)%n",
+                    ms(50), ms(90), ms(99), ms(99.9), latencyMicros.getMax() / 1e3, latencyMicros.getMean() / 1e3,
+                    options.mode.equals("batch") ? "batch" : "request");
+            System.out.printf(Locale.ROOT, "client      cpu=%.2f s gc=%d/%d ms peak-threads=%d heap-used=%.1f MB%n",
+                    cpuNanos / 1e9, gcCount, gcMillis, peakThreads, heapUsed / 1e6);
+        }
+
+        private double ms(double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1e3;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(Options.parse(args)).print();
+    }
+
+    static Report run(Options o) throws Exception {
+        LoadTestServer server = o.target == null
+                ? new LoadTestServer(LoadTestServer.Latency.parse(o.latency), o.errorRate, o.responseBytes,
+                        o.serverMaxConcurrent)
+                : null;
+        try {
+            ForgeClient client = new ForgeClient(server != null ? server.url() : o.target, Duration.ofSeconds(30));
+            if (o.warmup > 0) drive(client, o, o.warmup, new Report(o));
+
+            Report report = new Report(o);
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long cpuBefore = processCpuNanos();
+            long[] gcBefore = gc();
+            long start = System.nanoTime();
+
+            drive(client, o, o.requests, report);
+
+            report.elapsedNanos = System.nanoTime() - start;
+            report.cpuNanos = processCpuNanos() - cpuBefore;
+            long[] gcAfter = gc();
+            report.gcCount = gcAfter[0] - gcBefore[0];
+            report.gcMillis = gcAfter[1] - gcBefore[1];
+            report.peakThreads = threads.getPeakThreadCount();
+            report.heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            return report;
+        } finally {
+            if (server != null) server.close();
+        }
+    }
+
+    private static void drive(ForgeClient client, Options o, int requests, Report report) throws Exception {
+        switch (o.mode) {
+            case "sync": driveSync(client, o, requests, report); break;
+            case "async": driveAsync(client, o, requests, report); break;
+            default: driveBatch(client, o, requests, report); break;
+        }
+    }
+
+    private static ForgeClient.RenderRequestBuilder request(ForgeClient client, long n) {
+        return client.renderHtml("<h1>Label " + n + "</h1>").format(OutputFormat.PDF).paper("a5");
+    }
+
+    private static void driveSync(ForgeClient client, Options o, int requests, Report report) throws Exception {
+        AtomicLong tickets = new AtomicLong(requests);
+        runWorkers(o.concurrency, () -> {
+            long n;
+            while ((n = tickets.getAndDecrement()) > 0) {
+                long t0 = System.nanoTime();
+                try {
+                    byte[] out = request(client, n).send();
+                    report.ok.increment();
+                    report.bytes.add(out.length);
+                } catch (ForgeException e) {
+                    report.recordError(e);
+                }
+                report.latencyMicros.record((System.nanoTime() - t0) / 1000);
+            }
+        });
+    }
+
+    private static void driveAsync(ForgeClient client, Options o, int requests, Report report) throws Exception {
+        Semaphore window = new Semaphore(o.concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int n = 0; n < requests; n++) {
+            window.acquire();
+            long t0 = System.nanoTime();
+            request(client, n).sendAsync().whenComplete((resp, err) -> {
+                report.latencyMicros.record((System.nanoTime() - t0) / 1000);
+                if (err == null) {
+                    report.ok.increment();
+                    report.bytes.add(resp.getData().length);
+                } else {
+                    report.recordError(err.getCause() != null ? err.getCause() : err);
+                }
+                window.release();
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    private static void driveBatch(ForgeClient client, Options o, int requests, Report report) throws Exception {
+        AtomicLong tickets = new AtomicLong(requests);
+        runWorkers(o.concurrency, () -> {
+            long remaining;
+            while ((remaining = tickets.getAndAdd(-o.batchSize)) > 0) {
+                ForgeClient.BatchRequestBuilder batch = client.batch();
+                long size = Math.min(o.batchSize, remaining);
+                long t0 = System.nanoTime();
+                try {
+                    for (long i = 0; i < size; i++) batch.add(request(client, remaining - i));
+                    for (BatchResult r : batch.send()) {
+                        if (r.isSuccess()) {
+                            report.ok.increment();
+                            report.bytes.add(r.getResponse().getData().length);
+                        } else {
+                            report.recordError(r.getError());
+                        }
+                    }
+                } catch (ForgeException e) {
+                    for (long i = 0; i < size; i++) report.recordError(e);
+                }
+                report.latencyMicros.record((System.nanoTime() - t0) / 1000);
+            }
+        });
+    }
+
+    private static void runWorkers(int count, Runnable worker) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(count);
+        for (int i = 0; i < count; i++) pool.execute(worker);
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static long[] gc() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+}
@@ -0,0 +1,175 @@
+package com.centrix.forge;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded Forge stand-in for load tests. Serves {@code /health}, {@code /render} and
+ * {@code /render/batch} with simulated render latency, a random failure rate, a fixed
+ * output size, and 429 throttling beyond a concurrency limit.
+ */
+class LoadTestServer implements AutoCloseable {
+    static {
+        // Without this the JDK server's Nagle delay interacts with delayed ACKs and adds ~40 ms per response.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /** Simulated render time, in milliseconds. */
+    interface Latency {
+        double sampleMillis(ThreadLocalRandom random);
+
+        /**
+         * Parse {@code fixed:<ms>}, {@code uniform:<min>-<max>} or
+         * {@code lognormal:<median>,<sigma>}.
+         */
+        static Latency parse(String spec) {
+            String[] kind = spec.split(":", 2);
+            switch (kind[0]) {
+                case "fixed": {
+                    double ms = Double.parseDouble(kind[1]);
+                    return r -> ms;
+                }
+                case "uniform": {
+                    String[] range = kind[1].split("-");
+                    double min = Double.parseDouble(range[0]);
+                    double max = Double.parseDouble(range[1]);
+                    return r -> min + r.nextDouble() * (max - min);
+                }
+                case "lognormal": {
+                    String[] params = kind[1].split(",");
+                    double mu = Math.log(Double.parseDouble(params[0]));
+                    double sigma = Double.parseDouble(params[1]);
+                    return r -> Math.exp(mu + sigma * r.nextGaussian());
+                }
+                default:
+                    throw new IllegalArgumentException("unknown latency distribution: " + spec);
+            }
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "load-test-server");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Latency latency;
+    private final double errorRate;
+    private final byte[] output;
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+
+    LoadTestServer(Latency latency, double errorRate, int responseBytes, int maxConcurrent) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.output = new byte[responseBytes];
+        this.maxConcurrent = maxConcurrent;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/health", ex -> respond(ex, 200, new byte[0]));
+        server.createContext("/render/batch", this::handleBatch);
+        server.createContext("/render", this::handleRender);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Requests rejected with 429 so far. */
+    int getThrottled() {
+        return throttled.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleRender(HttpExchange ex) throws IOException {
+        ex.getRequestBody().readAllBytes();
+        if (!admit(ex)) return;
+        try {
+            simulateRender();
+            if (fails()) {
+                respond(ex, 500, "{\"error\":\"simulated failure\"}".getBytes(StandardCharsets.UTF_8));
+            } else {
+                respond(ex, 200, output);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void handleBatch(HttpExchange ex) throws IOException {
+        int items = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) items++;
+        }
+        if (!admit(ex)) return;
+        try {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            DataOutputStream frames = new DataOutputStream(buf);
+            for (int i = 0; i < items; i++) {
+                simulateRender();
+                byte[] body = fails() ? "{\"error\":\"simulated failure\"}".getBytes(StandardCharsets.UTF_8) : output;
+                frames.writeInt(i);
+                frames.writeShort(body == output ? 200 : 500);
+                frames.writeInt(body.length);
+                frames.write(body);
+            }
+            respond(ex, 200, buf.toByteArray());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private boolean admit(HttpExchange ex) throws IOException {
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            throttled.incrementAndGet();
+            ex.getResponseHeaders().set("Retry-After", "1");
+            respond(ex, 429, "{\"error\":\"too many requests\"}".getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+        return true;
+    }
+
+    private void simulateRender() {
+        long nanos = (long) (latency.sampleMillis(ThreadLocalRandom.current()) * 1_000_000);
+        if (nanos <= 0) return;
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean fails() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private static void respond(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
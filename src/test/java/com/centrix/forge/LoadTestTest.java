@@ -0,0 +1,34 @@
+package com.centrix.forge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LoadTestTest {
+
+    private static LoadTest.Report run(String... args) throws Exception {
+        return LoadTest.run(LoadTest.Options.parse(args));
+    }
+
+    @Test
+    public void everySendPathCompletesAllRequests() throws Exception {
+        for (String mode : new String[]{"sync", "async", "batch"}) {
+            LoadTest.Report r = run("--mode", mode, "--requests", "200", "--warmup", "0",
+                    "--concurrency", "4", "--batch-size", "30", "--latency", "fixed:0", "--response-bytes", "100");
+            assertEquals(mode, 200, r.ok.sum());
+            assertEquals(mode, 200 * 100, r.bytes.sum());
+        }
+    }
+
+    @Test
+    public void simulatedFailuresAndThrottlingAreReported() throws Exception {
+        LoadTest.Report failing = run("--requests", "200", "--warmup", "0", "--latency", "fixed:0",
+                "--error-rate", "1");
+        assertEquals(200, failing.serverErrors.sum());
+
+        LoadTest.Report throttled = run("--requests", "100", "--warmup", "0", "--concurrency", "8",
+                "--latency", "fixed:20", "--server-max-concurrent", "1");
+        assertTrue(throttled.throttled.sum() > 0);
+        assertEquals(100, throttled.completed());
+    }
+}
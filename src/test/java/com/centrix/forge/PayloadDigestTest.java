@@ -0,0 +1,86 @@
+package com.centrix.forge;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class PayloadDigestTest {
+
+    private final ForgeClient client = new ForgeClient("http://localhost:3000");
+
+    @Test
+    public void builderCallOrderDoesNotMatter() {
+        String a = client.renderHtml("<p>invoice</p>")
+                .paper("a4").pdfTitle("Invoice").pdfAuthor("Billing")
+                .pdfStandard(PdfStandard.A3B)
+                .pdfAttach("factur-x.xml", "PHhtbC8+")
+                .pdfAttach("terms.txt", "dGVybXM=")
+                .pdfBarcode(BarcodeType.QR, "inv-1")
+                .pdfBarcode(BarcodeType.CODE128, "inv-1")
+                .payloadDigest();
+        String b = client.renderHtml("<p>invoice</p>")
+                .pdfBarcode(BarcodeType.CODE128, "inv-1")
+                .pdfBarcode(BarcodeType.QR, "inv-1")
+                .pdfAttach("terms.txt", "dGVybXM=")
+                .pdfAttach("factur-x.xml", "PHhtbC8+")
+                .pdfStandard(PdfStandard.A3B)
+                .pdfAuthor("Billing").pdfTitle("Invoice").paper("a4")
+                .payloadDigest();
+        assertEquals(a, b);
+        assertEquals(64, a.length());
+    }
+
+    @Test
+    public void contentChangesTheDigest() {
+        String base = client.renderHtml("<p>a</p>").payloadDigest();
+        assertNotEquals(base, client.renderHtml("<p>b</p>").payloadDigest());
+        assertNotEquals(base, client.renderHtml("<p>a</p>").format(OutputFormat.PNG).payloadDigest());
+        assertNotEquals(base, client.renderHtml("<p>a</p>").pdfTitle("t").payloadDigest());
+        // Ordered arrays keep their order.
+        assertNotEquals(
+                client.renderHtml("x").customPalette(java.util.List.of("#000000", "#ffffff")).payloadDigest(),
+                client.renderHtml("x").customPalette(java.util.List.of("#ffffff", "#000000")).payloadDigest());
+    }
+
+    @Test
+    public void clientSideOptionsAreExcluded() {
+        assertEquals(client.renderHtml("x").payloadDigest(),
+                client.renderHtml("x").priority(Priority.BULK).tenant("t").deadline(Duration.ofSeconds(5)).payloadDigest());
+    }
+
+    @Test
+    public void digestIsSentAsIdempotencyKey() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            ForgeClient live = ForgeClient.builder(server.url()).idempotencyKeys(true).build();
+            ForgeClient.RenderRequestBuilder request = live.renderHtml("hello").deadline(Duration.ofSeconds(30));
+            String digest = request.payloadDigest();
+            request.send();
+            assertEquals(digest, server.lastHeaders().getFirst("Idempotency-Key"));
+            live.renderHtml("hello").sendAsync().join();
+            assertEquals(digest, server.lastHeaders().getFirst("Idempotency-Key"));
+
+            ForgeClient quiet = ForgeClient.builder(server.url()).idempotencyKeys(false).build();
+            quiet.renderHtml("hello").send();
+            assertNull(server.lastHeaders().getFirst("Idempotency-Key"));
+        }
+    }
+
+    @Test
+    public void idempotencyKeysAreOptInAndSkipUrlRenders() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            new ForgeClient(server.url()).renderHtml("hello").send();
+            assertNull(server.lastHeaders().getFirst("Idempotency-Key"));
+
+            // The page behind a URL can change between polls; a replayed response would freeze it.
+            ForgeClient live = ForgeClient.builder(server.url()).idempotencyKeys(true).build();
+            live.renderUrl("https://example.com/dashboard").send();
+            assertNull(server.lastHeaders().getFirst("Idempotency-Key"));
+
+            ForgeClient viaGateway = ForgeClient.builder(server.url()).gateway().build();
+            viaGateway.renderHtml("hello").send();
+            assertNotNull(server.lastHeaders().getFirst("Idempotency-Key"));
+        }
+    }
+}
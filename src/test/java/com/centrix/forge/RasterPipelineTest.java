@@ -0,0 +1,125 @@
+package com.centrix.forge;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RasterPipelineTest {
+
+    @Test
+    public void decodesHandWrittenQoi() throws Exception {
+        byte[] qoi = {
+                'q', 'o', 'i', 'f', 0, 0, 0, 4, 0, 0, 0, 1, 3, 0,
+                (byte) 0xfe, 10, 20, 30,          // RGB
+                (byte) 0xc0,                      // RUN of 1
+                (byte) 0x7f,                      // DIFF +1 +1 +1
+                0x09,                             // INDEX of (10,20,30), hash 9
+                0, 0, 0, 0, 0, 0, 0, 1};
+        PixelBuffer image = QoiCodec.decode(qoi, null);
+        assertEquals(4, image.getWidth());
+        assertEquals(1, image.getHeight());
+        assertEquals(0xff0a141e, image.getPixel(0, 0));
+        assertEquals(0xff0a141e, image.getPixel(1, 0));
+        assertEquals(0xff0b151f, image.getPixel(2, 0));
+        assertEquals(0xff0a141e, image.getPixel(3, 0));
+    }
+
+    @Test
+    public void qoiRoundTripsEveryChunkType() throws Exception {
+        Random random = new Random(42);
+        PixelBuffer image = new PixelBuffer(97, 31);
+        int p = 0xff808080;
+        for (int i = 0; i < 97 * 31; i++) {
+            switch (random.nextInt(5)) {
+                case 0: break;                                         // runs
+                case 1: p += 0x010101; break;                          // small diffs
+                case 2: p = (p & 0xff000000) | (p + 0x0a0c0e) & 0xffffff; break;
+                case 3: p = random.nextInt() | 0xff000000; break;      // full RGB
+                default: p = random.nextInt(); break;                  // alpha changes
+            }
+            image.getPixels()[i] = p;
+        }
+        byte[] encoded = QoiCodec.encode(image);
+        PixelBuffer reuse = new PixelBuffer(200, 200);
+        PixelBuffer decoded = QoiCodec.decode(new ByteArrayInputStream(encoded), reuse);
+        assertSame(reuse, decoded);
+        assertEquals(97, decoded.getWidth());
+        for (int i = 0; i < 97 * 31; i++) {
+            assertEquals("pixel " + i, image.getPixels()[i], decoded.getPixels()[i]);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedQoiIsRejected() throws Exception {
+        byte[] encoded = QoiCodec.encode(StubForgeServer.gradient(16, 16));
+        QoiCodec.decode(Arrays.copyOf(encoded, encoded.length / 2), null);
+    }
+
+    @Test
+    public void shrinkingAveragesSourceBoxes() {
+        PixelBuffer src = new PixelBuffer(4, 2);
+        int[] px = {0xff000000, 0xff0000ff, 0xffffffff, 0xffffffff,
+                    0xff0000ff, 0xff000000, 0xffffffff, 0xffffffff};
+        System.arraycopy(px, 0, src.getPixels(), 0, px.length);
+        PixelBuffer out = new RasterPipeline().scale(2, 1).apply(src, null);
+        assertEquals(0xff000080, out.getPixel(0, 0));
+        assertEquals(0xffffffff, out.getPixel(1, 0));
+    }
+
+    @Test
+    public void cropThenScaleMatchesSequentialOnLargeImages() {
+        PixelBuffer src = StubForgeServer.gradient(1200, 900);
+        RasterPipeline parallel = new RasterPipeline(new ForkJoinPool(4)).crop(100, 50, 800, 600).scale(400, 300);
+        RasterPipeline sequential = new RasterPipeline(new ForkJoinPool(1)).crop(100, 50, 800, 600).scale(400, 300);
+        PixelBuffer a = parallel.apply(src, null);
+        PixelBuffer b = sequential.apply(src, null);
+        assertEquals(400, a.getWidth());
+        assertEquals(300, a.getHeight());
+        for (int i = 0; i < 400 * 300; i++) assertEquals(b.getPixels()[i], a.getPixels()[i]);
+        // Top-left destination pixel averages source (100..101, 50..51).
+        int expected = StubForgeServer.gradient(1200, 900).getPixel(100, 50);
+        assertEquals((expected >> 16) & 0xff, (a.getPixel(0, 0) >> 16) & 0xff, 1);
+    }
+
+    @Test
+    public void tilesCoverTheImage() {
+        PixelBuffer src = StubForgeServer.gradient(250, 130);
+        List<PixelBuffer> tiles = new RasterPipeline().tiles(src, 100, 100);
+        assertEquals(6, tiles.size());
+        assertEquals(100, tiles.get(0).getWidth());
+        assertEquals(50, tiles.get(2).getWidth());
+        assertEquals(30, tiles.get(5).getHeight());
+        assertEquals(src.getPixel(249, 129), tiles.get(5).getPixel(49, 29));
+        assertEquals(src.getPixel(100, 0), tiles.get(1).getPixel(0, 0));
+    }
+
+    @Test
+    public void encodesPngReadableByImageIo() throws Exception {
+        PixelBuffer src = StubForgeServer.gradient(64, 32);
+        byte[] png = new RasterPipeline().encode(src, OutputFormat.PNG);
+        BufferedImage read = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(64, read.getWidth());
+        assertEquals(src.getPixel(40, 20), read.getRGB(40, 20));
+        assertArrayEquals(QoiCodec.encode(src), new RasterPipeline().encode(src, OutputFormat.QOI));
+    }
+
+    @Test
+    public void sendRasterDecodesQoiRenders() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            ForgeClient client = new ForgeClient(server.url());
+            PixelBuffer frame = client.renderHtml("raster:320x200").sendRaster(null);
+            assertEquals("qoi", server.lastPayload().get("format").getAsString());
+            assertEquals(320, frame.getWidth());
+            assertEquals(StubForgeServer.gradient(320, 200).getPixel(300, 150), frame.getPixel(300, 150));
+        }
+    }
+}
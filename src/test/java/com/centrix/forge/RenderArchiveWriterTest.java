@@ -0,0 +1,92 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+public class RenderArchiveWriterTest {
+
+    private StubForgeServer server;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        client = new ForgeClient(server.url());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private static Map<String, String> unzip(byte[] zip) throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry e;
+            while ((e = in.getNextEntry()) != null) {
+                entries.put(e.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void batchResultsStreamIntoArchive() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RenderArchiveWriter archive = new RenderArchiveWriter(out, i -> "invoice-" + i + ".pdf")) {
+            client.batch()
+                    .add(client.renderHtml("one"))
+                    .add(client.renderHtml("fail"))
+                    .add(client.renderHtml("three"))
+                    .send(archive);
+
+            assertEquals(2, archive.getEntryCount());
+            assertEquals(1, archive.getFailures().size());
+            assertEquals(1, archive.getFailures().get(0).getIndex());
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(2, entries.size());
+        assertEquals("pdf:one", entries.get("invoice-0.pdf"));
+        assertEquals("pdf:three", entries.get("invoice-2.pdf"));
+    }
+
+    @Test
+    public void asyncRendersStreamIntoArchive() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RenderArchiveWriter archive = new RenderArchiveWriter(out)) {
+            CompletableFuture.allOf(
+                    archive.add("a.png", client.renderHtml("a").format(OutputFormat.PNG).sendAsync()),
+                    archive.add("b.png", client.renderHtml("b").format(OutputFormat.PNG).sendAsync())
+            ).join();
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals("png:a", entries.get("a.png"));
+        assertEquals("png:b", entries.get("b.png"));
+    }
+
+    @Test
+    public void asyncServerErrorIsWrapped() {
+        try {
+            client.renderHtml("fail").sendAsync().join();
+            fail("expected CompletionException");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ForgeServerException);
+            assertEquals(422, ((ForgeServerException) e.getCause()).getStatusCode());
+        }
+    }
+}
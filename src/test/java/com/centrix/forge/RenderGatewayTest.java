@@ -0,0 +1,143 @@
+package com.centrix.forge;
+
+import com.sun.net.httpserver.Headers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class RenderGatewayTest {
+
+    private StubForgeServer server;
+    private RenderGateway gateway;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        ForgeClient upstream = ForgeClient.builder(server.url())
+                .scheduler(new RenderScheduler(4))
+                .build();
+        gateway = RenderGateway.builder(upstream).cache(1 << 20, Duration.ofMinutes(1)).build();
+        client = ForgeClient.builder(gateway.getUrl()).gateway().build();
+    }
+
+    @After
+    public void tearDown() {
+        gateway.close();
+        server.close();
+    }
+
+    @Test
+    public void rendersThroughTheGateway() throws Exception {
+        assertTrue(client.health());
+        RenderResponse resp = client.renderHtml("hello").format(OutputFormat.PNG).sendResponse();
+        assertEquals("png:hello", new String(resp.getData(), StandardCharsets.UTF_8));
+        assertNotNull(resp.getETag());
+        assertEquals(1, gateway.getUpstreamRenders());
+    }
+
+    @Test
+    public void repeatedRendersAreServedFromTheCache() throws Exception {
+        client.renderHtml("hello").send();
+        ForgeClient other = ForgeClient.builder(gateway.getUrl()).gateway().build();
+        assertEquals("pdf:hello", new String(other.renderHtml("hello").send(), StandardCharsets.UTF_8));
+        assertEquals(1, gateway.getUpstreamRenders());
+        assertEquals(1, gateway.getCacheHits());
+    }
+
+    @Test
+    public void concurrentIdenticalRendersAreCoalesced() throws Exception {
+        CompletableFuture<RenderResponse> a = client.renderHtml("delay:300").sendAsync();
+        Thread.sleep(100);
+        CompletableFuture<RenderResponse> b = client.renderHtml("delay:300").sendAsync();
+        assertArrayEquals(a.join().getData(), b.join().getData());
+        assertEquals(1, gateway.getUpstreamRenders());
+        assertEquals(1, gateway.getCoalesced());
+    }
+
+    @Test
+    public void rendersWithDifferentDeadlinesShareTheClientsKey() throws Exception {
+        String digest = client.renderHtml("hello").payloadDigest();
+        client.renderHtml("hello").deadline(Duration.ofSeconds(20)).send();
+        assertEquals(digest, server.lastHeaders().getFirst("Idempotency-Key"));
+
+        client.renderHtml("hello").deadline(Duration.ofSeconds(40)).send();
+        assertEquals(1, gateway.getUpstreamRenders());
+        assertEquals(1, gateway.getCacheHits());
+
+        CompletableFuture<RenderResponse> a = client.renderHtml("delay:300").deadline(Duration.ofSeconds(20)).sendAsync();
+        Thread.sleep(100);
+        CompletableFuture<RenderResponse> b = client.renderHtml("delay:300").deadline(Duration.ofSeconds(40)).sendAsync();
+        assertArrayEquals(a.join().getData(), b.join().getData());
+        assertEquals(2, gateway.getUpstreamRenders());
+        assertEquals(1, gateway.getCoalesced());
+    }
+
+    @Test
+    public void serverErrorsPassThrough() {
+        try {
+            client.renderHtml("fail").send();
+            fail("expected ForgeServerException");
+        } catch (ForgeException e) {
+            assertEquals(422, ((ForgeServerException) e).getStatusCode());
+            assertEquals("cannot render", ((ForgeServerException) e).getError());
+        }
+        try {
+            client.renderHtml("overload:10").send();
+            fail("expected ForgeServerException");
+        } catch (ForgeException e) {
+            ForgeServerException se = (ForgeServerException) e;
+            assertEquals(503, se.getStatusCode());
+            assertEquals(Duration.ofSeconds(7), se.getRetryAfter());
+            assertEquals("req-1", se.getRequestId());
+        }
+    }
+
+    @Test
+    public void batchesPassThrough() throws Exception {
+        List<BatchResult> results = client.batch()
+                .add(client.renderHtml("one"))
+                .add(client.renderHtml("fail"))
+                .add(client.renderHtml("three").format(OutputFormat.PNG))
+                .send();
+        assertEquals("pdf:one", new String(results.get(0).get().getData(), StandardCharsets.UTF_8));
+        assertEquals(422, results.get(1).getError().getStatusCode());
+        assertEquals("png:three", new String(results.get(2).get().getData(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void unreachableUpstreamIsBadGateway() throws Exception {
+        try (RenderGateway dead = RenderGateway.builder(new ForgeClient("http://127.0.0.1:9")).build()) {
+            ForgeClient viaDead = ForgeClient.builder(dead.getUrl()).gateway().build();
+            assertFalse(viaDead.health());
+            viaDead.renderHtml("hello").send();
+            fail("expected ForgeServerException");
+        } catch (ForgeServerException e) {
+            assertEquals(502, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void forwardedOptionsAreParsed() {
+        Headers headers = new Headers();
+        Instant deadline = Instant.now().plusSeconds(5);
+        headers.set(RenderGateway.PRIORITY_HEADER, "INTERACTIVE");
+        headers.set(RenderGateway.TENANT_HEADER, "billing");
+        headers.set(RenderGateway.DEADLINE_HEADER, deadline.toString());
+        SendOptions options = RenderGateway.options(headers);
+        assertEquals(Priority.INTERACTIVE, options.priority);
+        assertEquals("billing", options.tenant);
+        assertEquals(deadline, options.deadline);
+        assertEquals(Priority.NORMAL, RenderGateway.options(new Headers()).priority);
+        headers.set("Idempotency-Key", "abc123");
+        assertEquals("abc123", RenderGateway.options(headers).idempotencyKey);
+    }
+}
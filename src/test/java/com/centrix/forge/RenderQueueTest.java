@@ -0,0 +1,225 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class RenderQueueTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private StubForgeServer server;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        client = new ForgeClient(server.url());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void pendingJobsSurviveReopen() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            q.enqueue(client.renderHtml("a"));
+            q.enqueue(client.renderHtml("b"));
+        }
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            assertEquals(List.of(1L, 2L), q.pendingIds());
+            assertEquals(3L, q.enqueue(client.renderHtml("c")));
+        }
+    }
+
+    @Test
+    public void completedJobsAreNotReRenderedAfterRestart() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        Map<Long, String> outputs = new ConcurrentHashMap<>();
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            q.enqueue(client.renderHtml("ok-1"));
+            q.enqueue(client.renderHtml("flaky"));
+            q.enqueue(client.renderHtml("ok-2"));
+            try {
+                q.drain(client, 2, (id, resp) -> {
+                    String out = new String(resp.getData(), StandardCharsets.UTF_8);
+                    // Simulate the consumer failing before it could store this output.
+                    if (out.contains("flaky")) throw new IOException("disk full");
+                    outputs.put(id, out);
+                });
+                fail("expected IOException");
+            } catch (IOException e) {
+                assertEquals("disk full", e.getMessage());
+            }
+        }
+
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            assertEquals(List.of(2L), q.pendingIds());
+            assertEquals(1, q.drain(client, 4, (id, resp) ->
+                    outputs.put(id, new String(resp.getData(), StandardCharsets.UTF_8))));
+            assertEquals(0, q.pendingCount());
+        }
+        assertEquals("pdf:flaky", outputs.get(2L));
+        assertEquals(3, outputs.size());
+    }
+
+    @Test
+    public void enqueueAllPersistsEveryJob() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        try (RenderQueue q = new RenderQueue(dir, 512)) {
+            List<ForgeClient.RenderRequestBuilder> requests = new ArrayList<>();
+            for (int i = 0; i < 20; i++) requests.add(client.renderHtml("doc-" + i));
+            assertEquals(LongStream.rangeClosed(1, 20).boxed().collect(Collectors.toList()), q.enqueueAll(requests));
+            assertTrue(segmentCount(dir) > 1);
+        }
+        try (RenderQueue q = new RenderQueue(dir, 512)) {
+            assertEquals(20, q.pendingCount());
+            try {
+                q.enqueueAll(List.of(client.renderHtml("ok"), client.renderHtml("x").width(-1)));
+                fail("expected ForgeValidationException");
+            } catch (ForgeValidationException e) {
+                assertEquals(20, q.pendingCount());
+            }
+        }
+    }
+
+    @Test
+    public void overlappingDrainsRenderEachJobOnce() throws Exception {
+        try (RenderQueue q = new RenderQueue(tmp.getRoot().toPath(), 4096)) {
+            for (int i = 0; i < 6; i++) q.enqueue(client.renderHtml("delay:100"));
+            Map<Long, Integer> renders = new ConcurrentHashMap<>();
+            RenderJobHandler count = (id, resp) -> renders.merge(id, 1, Integer::sum);
+            CompletableFuture<Integer> other = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return q.drain(client, 2, count);
+                } catch (IOException | InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            int completed = q.drain(client, 2, count);
+            assertEquals(6, completed + other.join());
+            assertEquals(6, renders.size());
+            assertTrue(renders.values().stream().allMatch(n -> n == 1));
+            assertEquals(0, q.pendingCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainRejectsNonPositiveParallelism() throws Exception {
+        try (RenderQueue q = new RenderQueue(tmp.getRoot().toPath(), 4096)) {
+            q.drain(client, 0, (id, resp) -> {});
+        }
+    }
+
+    @Test
+    public void clientErrorsAreTerminal() throws Exception {
+        try (RenderQueue q = new RenderQueue(tmp.getRoot().toPath(), 4096)) {
+            q.enqueue(client.renderHtml("fail"));
+            Map<Long, ForgeException> failures = new ConcurrentHashMap<>();
+            q.drain(client, 1, new RenderJobHandler() {
+                @Override
+                public void onSuccess(long id, RenderResponse response) {}
+
+                @Override
+                public void onFailure(long id, ForgeException error) { failures.put(id, error); }
+            });
+            assertEquals(0, q.pendingCount());
+            assertEquals(422, ((ForgeServerException) failures.get(1L)).getStatusCode());
+        }
+    }
+
+    @Test
+    public void finishedSegmentsAreDeleted() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        try (RenderQueue q = new RenderQueue(dir, 512)) {
+            for (int i = 0; i < 20; i++) q.enqueue(client.renderHtml("doc-" + i));
+            assertTrue(segmentCount(dir) > 1);
+            q.drain(client, 4, (id, resp) -> {});
+            assertEquals(1, segmentCount(dir));
+        }
+    }
+
+    @Test
+    public void completionRecordsSurviveWhileEarlierJobsArePending() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        try (RenderQueue q = new RenderQueue(dir, 100)) {
+            q.enqueue(client.renderHtml("a"));
+            q.enqueue(client.renderHtml("b"));
+            q.enqueue(client.renderHtml("a-somewhat-longer-document-body-xx"));
+            assertTrue(segmentCount(dir) > 1);
+            try {
+                q.drain(client, 1, (id, resp) -> {
+                    if (id == 2) throw new IOException("disk full");
+                });
+                fail("expected IOException");
+            } catch (IOException e) {
+                assertEquals("disk full", e.getMessage());
+            }
+            assertEquals(List.of(2L), q.pendingIds());
+        }
+        try (RenderQueue q = new RenderQueue(dir, 100)) {
+            assertEquals(List.of(2L), q.pendingIds());
+            q.drain(client, 1, (id, resp) -> {});
+            assertEquals(0, q.pendingCount());
+        }
+        try (RenderQueue q = new RenderQueue(dir, 100)) {
+            assertEquals(0, q.pendingCount());
+            assertEquals(1, segmentCount(dir));
+        }
+    }
+
+    @Test
+    public void tornTailRecordIsDiscarded() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            q.enqueue(client.renderHtml("a"));
+            q.enqueue(client.renderHtml("b"));
+        }
+        // Corrupt one payload byte of the second record, as if the crash happened mid-write.
+        Path segment = dir.resolve("segment-00000000.log");
+        byte[] bytes = Files.readAllBytes(segment);
+        int second = 8 + ByteBuffer.wrap(bytes).getInt(0);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{'#'}), second + 8 + 9 + 2);
+        }
+
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            assertEquals(List.of(1L), q.pendingIds());
+            assertEquals(2L, q.enqueue(client.renderHtml("c")));
+        }
+        try (RenderQueue q = new RenderQueue(dir, 4096)) {
+            assertEquals(List.of(1L, 2L), q.pendingIds());
+        }
+    }
+
+    private static long segmentCount(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+}
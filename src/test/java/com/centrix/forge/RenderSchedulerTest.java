@@ -0,0 +1,157 @@
+package com.centrix.forge;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RenderSchedulerTest {
+
+    /** Release permits one at a time and record which label each grant went to. */
+    private static List<String> drainOrder(RenderScheduler.Permit first,
+            List<CompletableFuture<RenderScheduler.Permit>> pending, List<String> labels) {
+        List<String> order = new ArrayList<>();
+        RenderScheduler.Permit current = first;
+        for (int n = 0; n < pending.size(); n++) {
+            current.close();
+            for (int i = 0; i < pending.size(); i++) {
+                CompletableFuture<RenderScheduler.Permit> f = pending.get(i);
+                if (f.isDone() && labels.get(i) != null) {
+                    order.add(labels.get(i));
+                    labels.set(i, null);
+                    current = f.join();
+                }
+            }
+        }
+        return order;
+    }
+
+    @Test
+    public void interactiveJumpsAheadOfQueuedBulk() throws Exception {
+        RenderScheduler s = new RenderScheduler(1);
+        RenderScheduler.Permit held = s.acquire(Priority.BULK, "batch");
+
+        List<CompletableFuture<RenderScheduler.Permit>> pending = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pending.add(s.acquireAsync(Priority.BULK, "batch"));
+            labels.add("bulk-" + i);
+        }
+        pending.add(s.acquireAsync(Priority.INTERACTIVE, "web"));
+        labels.add("interactive");
+
+        assertEquals(List.of("interactive", "bulk-0", "bulk-1", "bulk-2"), drainOrder(held, pending, labels));
+    }
+
+    @Test
+    public void tenantsShareAClassFairly() throws Exception {
+        RenderScheduler s = new RenderScheduler(1);
+        RenderScheduler.Permit held = s.acquire(Priority.NORMAL, "a");
+
+        List<CompletableFuture<RenderScheduler.Permit>> pending = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pending.add(s.acquireAsync(Priority.NORMAL, "a"));
+            labels.add("a");
+        }
+        pending.add(s.acquireAsync(Priority.NORMAL, "b"));
+        labels.add("b");
+
+        // b arrived last but is served after a's first request, not after all four.
+        assertEquals(List.of("a", "b", "a", "a", "a"), drainOrder(held, pending, labels));
+    }
+
+    @Test
+    public void heavierTenantGetsProportionalShare() throws Exception {
+        RenderScheduler s = new RenderScheduler(1).tenantWeight("gold", 2);
+        RenderScheduler.Permit held = s.acquire(Priority.NORMAL, "gold");
+
+        List<CompletableFuture<RenderScheduler.Permit>> pending = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pending.add(s.acquireAsync(Priority.NORMAL, "std"));
+            labels.add("std");
+        }
+        for (int i = 0; i < 4; i++) {
+            pending.add(s.acquireAsync(Priority.NORMAL, "gold"));
+            labels.add("gold");
+        }
+
+        assertEquals(List.of("gold", "std", "gold", "gold", "std", "gold", "std"),
+                drainOrder(held, pending, labels));
+    }
+
+    @Test
+    public void statsTrackDepthAndAdmissions() throws Exception {
+        RenderScheduler s = new RenderScheduler(1);
+        RenderScheduler.Permit held = s.acquire(Priority.INTERACTIVE, null);
+        CompletableFuture<RenderScheduler.Permit> waiting = s.acquireAsync(Priority.BULK, null);
+
+        assertEquals(1, s.getInFlight());
+        assertEquals(1, s.getStats(Priority.BULK).getQueueDepth());
+        assertEquals(1, s.getStats(Priority.INTERACTIVE).getAdmitted());
+
+        held.close();
+        held.close(); // idempotent
+        assertTrue(waiting.isDone());
+        assertEquals(0, s.getStats(Priority.BULK).getQueueDepth());
+        assertEquals(1, s.getStats(Priority.BULK).getAdmitted());
+        assertEquals(1, s.getInFlight());
+
+        waiting.join().close();
+        assertEquals(0, s.getInFlight());
+    }
+
+    @Test
+    public void cancelledWaiterLeavesTheQueue() throws Exception {
+        RenderScheduler s = new RenderScheduler(1);
+        RenderScheduler.Permit held = s.acquire(Priority.NORMAL, null);
+        CompletableFuture<RenderScheduler.Permit> waiting = s.acquireAsync(Priority.NORMAL, null);
+
+        waiting.cancel(false);
+        assertEquals(0, s.getStats(Priority.NORMAL).getQueueDepth());
+        held.close();
+        assertEquals(0, s.getInFlight());
+    }
+
+    @Test
+    public void scheduledClientSendsThroughScheduler() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            RenderScheduler s = new RenderScheduler(2);
+            ForgeClient client = ForgeClient.builder(server.url()).scheduler(s).build();
+
+            client.renderHtml("a").priority(Priority.INTERACTIVE).tenant("web").send();
+            client.renderHtml("b").priority(Priority.BULK).sendAsync().join();
+            client.batch().add(client.renderHtml("c")).send();
+
+            assertEquals(1, s.getStats(Priority.INTERACTIVE).getAdmitted());
+            assertEquals(2, s.getStats(Priority.BULK).getAdmitted());
+            assertEquals(0, s.getInFlight());
+        }
+    }
+
+    @Test
+    public void asyncSendReleasesPermitWhenPayloadCannotBeSerialized() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            RenderScheduler s = new RenderScheduler(1);
+            ForgeClient client = ForgeClient.builder(server.url()).scheduler(s).validateRequests(false).build();
+
+            CompletableFuture<RenderResponse> nan = client.renderHtml("a").pdfWatermarkOpacity(Double.NaN).sendAsync();
+            try {
+                nan.join();
+                fail("expected IllegalArgumentException");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+            assertEquals(0, s.getInFlight());
+            assertEquals("pdf:b", new String(client.renderHtml("b").sendAsync().get(5, TimeUnit.SECONDS).getData(),
+                    StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RenderStatsTest {
+
+    private StubForgeServer server;
+    private RenderStats stats;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        stats = new RenderStats("pdf.linearize", "quantize.dither", "pdf.signature.certificate_data");
+        client = ForgeClient.builder(server.url()).statistics(stats).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void histogramPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.record(v);
+
+        assertEquals(100_000, h.getCount());
+        assertEquals(100_000, h.getMax());
+        assertEquals(50_000, h.getValueAtPercentile(50), 50_000 * 0.016);
+        assertEquals(99_000, h.getValueAtPercentile(99), 99_000 * 0.016);
+        assertEquals(100_000, h.getValueAtPercentile(100));
+        for (long v = 0; v < 1 << 20; v += 997) {
+            assertTrue(LatencyHistogram.highestEquivalent(LatencyHistogram.bucket(v)) >= v);
+        }
+
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void rendersAreSegmentedByFormatAndOptions() throws Exception {
+        client.renderHtml("a").pdfLinearize(true).send();
+        client.renderHtml("b").pdfLinearize(true).send();
+        client.renderHtml("c").format(OutputFormat.PNG).dither(DitherMethod.FLOYD_STEINBERG).sendAsync().join();
+        client.renderHtml("d").pdfSignCertificate("MIIC".repeat(100)).send();
+
+        List<String> keys = stats.getSegments().stream().map(RenderStats.SegmentStats::getKey)
+                .collect(Collectors.toList());
+        assertEquals(List.of(
+                "format=pdf,pdf.linearize=-,quantize.dither=-,pdf.signature.certificate_data=set",
+                "format=pdf,pdf.linearize=true,quantize.dither=-,pdf.signature.certificate_data=-",
+                "format=png,pdf.linearize=-,quantize.dither=floyd-steinberg,pdf.signature.certificate_data=-"),
+                keys);
+
+        RenderStats.SegmentStats linearized = stats.getSegment(keys.get(1));
+        assertEquals(2, linearized.getRequests());
+        assertEquals(0, linearized.getErrors());
+        assertEquals("pdf:a".length() + "pdf:b".length(), linearized.getBytesReceived());
+        assertTrue(linearized.getBytesSent() > 0);
+        assertTrue(linearized.getMaxMillis() >= linearized.getP50Millis());
+    }
+
+    @Test
+    public void failuresAndBatchItemsAreRecorded() throws Exception {
+        try {
+            client.renderHtml("fail").send();
+            fail("expected ForgeServerException");
+        } catch (ForgeServerException expected) {
+        }
+        client.batch().add(client.renderHtml("x")).add(client.renderHtml("fail")).send();
+
+        assertEquals(3, stats.getTotalRequests());
+        assertEquals(2, stats.getTotalErrors());
+    }
+
+    @Test
+    public void exportedOverJmx() throws Exception {
+        client.renderHtml("a").send();
+        ObjectName name = stats.register("test-client");
+        try {
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, mbeans.getAttribute(name, "TotalRequests"));
+            CompositeData[] segments = (CompositeData[]) mbeans.getAttribute(name, "Segments");
+            assertEquals(1, segments.length);
+            assertEquals(1L, segments[0].get("requests"));
+            mbeans.invoke(name, "reset", null, null);
+            assertEquals(0L, mbeans.getAttribute(name, "TotalRequests"));
+        } finally {
+            stats.unregister("test-client");
+        }
+    }
+}
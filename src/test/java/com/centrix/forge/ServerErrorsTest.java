@@ -0,0 +1,131 @@
+package com.centrix.forge;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+public class ServerErrorsTest {
+
+    private StubForgeServer server;
+    private ForgeClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubForgeServer();
+        client = new ForgeClient(server.url());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void largeErrorBodyIsCappedAndDecoded() throws Exception {
+        try {
+            client.renderHtml("overload:4000000").send();
+            fail("expected ForgeServerException");
+        } catch (ForgeServerException e) {
+            assertEquals(503, e.getStatusCode());
+            assertEquals("überlastet", e.getError());
+            assertTrue(e.isRetryable());
+            assertEquals(Duration.ofSeconds(7), e.getRetryAfter());
+            assertEquals("req-1", e.getRequestId());
+        }
+        // The connection pool is still usable afterwards.
+        assertEquals("pdf:ok", new String(client.renderHtml("ok").send(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void asyncErrorsCarryDetails() {
+        try {
+            client.renderHtml("overload:100000").sendAsync().join();
+            fail("expected ForgeServerException");
+        } catch (CompletionException e) {
+            ForgeServerException cause = (ForgeServerException) e.getCause();
+            assertEquals(503, cause.getStatusCode());
+            assertEquals("req-1", cause.getRequestId());
+        }
+    }
+
+    @Test
+    public void clientErrorsAreNotRetryable() {
+        try {
+            client.renderHtml("fail").send();
+            fail("expected ForgeServerException");
+        } catch (ForgeException e) {
+            ForgeServerException se = (ForgeServerException) e;
+            assertFalse(se.isRetryable());
+            assertNull(se.getRetryAfter());
+            assertEquals("cannot render", se.getError());
+        }
+    }
+
+    @Test
+    public void nonJsonBodyFallsBackToStatus() {
+        byte[] html = "<html><body>Bad Gateway</body></html>".getBytes(StandardCharsets.UTF_8);
+        assertEquals("HTTP 502", ServerErrors.errorMessage(502, new ByteArrayInputStream(html)));
+    }
+
+    @Test
+    public void errorFieldAfterTheCapIsNotRead() {
+        char[] padding = new char[ServerErrors.MAX_BODY_BYTES];
+        Arrays.fill(padding, 'x');
+        byte[] body = ("{\"page\":\"" + new String(padding) + "\",\"error\":\"late\"}").getBytes(StandardCharsets.UTF_8);
+        assertEquals("HTTP 500", ServerErrors.errorMessage(500, new ByteArrayInputStream(body)));
+    }
+
+    @Test
+    public void retryAfterAcceptsHttpDates() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+        Duration d = ServerErrors.retryAfter(headers("Retry-After", date));
+        assertTrue(d.getSeconds() > 20 && d.getSeconds() <= 30);
+        assertNull(ServerErrors.retryAfter(headers("Retry-After", "soon")));
+    }
+
+    @Test
+    public void oversizedBatchErrorFrameIsSkipped() throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream frames = new DataOutputStream(buf);
+        byte[] error = new byte[ServerErrors.MAX_BODY_BYTES * 4];
+        Arrays.fill(error, (byte) ' ');
+        byte[] json = "{\"error\":\"too big\"}".getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(json, 0, error, 0, json.length);
+        frames.writeInt(1);
+        frames.writeShort(500);
+        frames.writeInt(error.length);
+        frames.write(error);
+        frames.writeInt(0);
+        frames.writeShort(200);
+        frames.writeInt(2);
+        frames.write("ok".getBytes(StandardCharsets.UTF_8));
+
+        BatchFrameReader reader = new BatchFrameReader(new ByteArrayInputStream(buf.toByteArray()), 2);
+        BatchResult first = reader.next();
+        assertEquals(1, first.getIndex());
+        assertEquals("too big", first.getError().getError());
+        BatchResult second = reader.next();
+        assertEquals(0, second.getIndex());
+        assertEquals("ok", new String(second.get().getData(), StandardCharsets.UTF_8));
+    }
+
+    private static HttpHeaders headers(String name, String value) {
+        return HttpHeaders.of(Map.of(name, List.of(value)), (n, v) -> true);
+    }
+}
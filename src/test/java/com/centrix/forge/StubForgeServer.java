@@ -0,0 +1,214 @@
+package com.centrix.forge;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process Forge server for tests.
+ *
+ * <p>Each render echoes {@code "<format>:<html>"} as its output. A payload whose
+ * html contains {@code "fail"} is rejected with a 422 and a JSON error body. Html of
+ * the form {@code "delay:<ms>"} waits before responding, and {@code "stall:<ms>"} sends
+ * the headers and part of the body, then waits before finishing it. Html of the form
+ * {@code "overload:<bytes>"} is rejected with a 503 carrying {@code Retry-After} and
+ * {@code X-Request-Id} headers and a JSON error padded to at least {@code bytes}. A QOI
+ * render of {@code "raster:<w>x<h>"} returns a real image: red rises left to right and
+ * green top to bottom; a {@code "+<x>,<y>"} suffix adds a white pixel. Successful renders
+ * carry an ETag, and a matching {@code If-None-Match} is answered with a 304 unless
+ * {@link #etags(boolean)} turned ETags off.
+ */
+class StubForgeServer implements AutoCloseable {
+    static {
+        // Without this the JDK server's Nagle delay interacts with delayed ACKs and adds ~40 ms per response.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private volatile JsonObject lastPayload;
+    private volatile Headers lastHeaders;
+    private volatile boolean etags = true;
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    StubForgeServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/health", ex -> {
+            connections.add(ex.getRemoteAddress());
+            respond(ex, 200, "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/render/batch", this::handleBatch);
+        server.createContext("/render", this::handleRender);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** The most recent payload received on {@code /render}, or the last line of a {@code /render/batch}. */
+    JsonObject lastPayload() {
+        return lastPayload;
+    }
+
+    /** Request headers of the most recent {@code /render}. */
+    Headers lastHeaders() {
+        return lastHeaders;
+    }
+
+    /** Number of distinct client connections that sent {@code /health} or {@code /render}. */
+    int connections() {
+        return connections.size();
+    }
+
+    /** Whether to send ETags and honour {@code If-None-Match}. */
+    void etags(boolean enabled) {
+        etags = enabled;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleRender(HttpExchange ex) throws IOException {
+        connections.add(ex.getRemoteAddress());
+        JsonObject payload = JsonParser.parseString(
+                new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        lastPayload = payload;
+        lastHeaders = ex.getRequestHeaders();
+        String html = payload.has("html") ? payload.get("html").getAsString() : "";
+        if (html.startsWith("delay:")) {
+            sleep(Long.parseLong(html.substring(6)));
+        } else if (html.startsWith("stall:")) {
+            ex.sendResponseHeaders(200, 1024);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(new byte[512]);
+                os.flush();
+                sleep(Long.parseLong(html.substring(6)));
+                os.write(new byte[512]);
+            } catch (IOException e) {
+                // Client gave up on the download.
+            }
+            return;
+        }
+        if (html.startsWith("overload:")) {
+            char[] padding = new char[Integer.parseInt(html.substring(9))];
+            Arrays.fill(padding, 'x');
+            String body = "{\"error\":\"\u00fcberlastet\",\"page\":\"" + new String(padding) + "\"}";
+            ex.getResponseHeaders().set("Retry-After", "7");
+            ex.getResponseHeaders().set("X-Request-Id", "req-1");
+            try {
+                respond(ex, 503, body.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // Client stopped reading the error page.
+            }
+            return;
+        }
+        Object[] out = render(payload);
+        if (etags && (Integer) out[0] == 200) {
+            String etag = "\"" + Integer.toHexString(Arrays.hashCode((byte[]) out[1])) + "\"";
+            ex.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                respond(ex, 304, new byte[0]);
+                return;
+            }
+        }
+        respond(ex, (Integer) out[0], (byte[]) out[1]);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleBatch(HttpExchange ex) throws IOException {
+        List<JsonObject> payloads = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) payloads.add(JsonParser.parseString(line).getAsJsonObject());
+        }
+        if (!payloads.isEmpty()) lastPayload = payloads.get(payloads.size() - 1);
+
+        // Emit frames in reverse order to exercise out-of-order demultiplexing.
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream frames = new DataOutputStream(buf);
+        for (int i = payloads.size() - 1; i >= 0; i--) {
+            Object[] out = render(payloads.get(i));
+            byte[] body = (byte[]) out[1];
+            frames.writeInt(i);
+            frames.writeShort((Integer) out[0]);
+            frames.writeInt(body.length);
+            frames.write(body);
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/x-forge-batch");
+        respond(ex, 200, buf.toByteArray());
+    }
+
+    private static Object[] render(JsonObject payload) {
+        String html = payload.has("html") ? payload.get("html").getAsString() : "";
+        if (html.contains("fail")) {
+            return new Object[]{422, "{\"error\":\"cannot render\"}".getBytes(StandardCharsets.UTF_8)};
+        }
+        if (html.startsWith("raster:") && payload.get("format").getAsString().equals("qoi")) {
+            String[] spec = html.substring(7).split("\\+");
+            String[] size = spec[0].split("x");
+            PixelBuffer image = gradient(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            if (spec.length > 1) {
+                String[] dot = spec[1].split(",");
+                image.setPixel(Integer.parseInt(dot[0]), Integer.parseInt(dot[1]), 0xffffffff);
+            }
+            return new Object[]{200, QoiCodec.encode(image)};
+        }
+        String out = payload.get("format").getAsString() + ":" + html;
+        return new Object[]{200, out.getBytes(StandardCharsets.UTF_8)};
+    }
+
+    static PixelBuffer gradient(int width, int height) {
+        PixelBuffer image = new PixelBuffer(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setPixel(x, y, 0xff000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        return image;
+    }
+
+    private static void respond(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getRequestBody().readAllBytes();
+        if (status == 304) {
+            // Test stub only: don't let a client reuse a connection after a bodiless 304, so the
+            // ETag tests never depend on how the JDK server requeues it.
+            ex.getResponseHeaders().set("Connection", "close");
+            ex.sendResponseHeaders(304, -1);
+            ex.close();
+            return;
+        }
+        ex.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
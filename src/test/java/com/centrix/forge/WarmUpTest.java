@@ -0,0 +1,53 @@
+package com.centrix.forge;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class WarmUpTest {
+
+    @Test
+    public void opensRequestedConnections() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            ForgeClient client = new ForgeClient(server.url());
+            assertNull(client.getWarmUpResult());
+
+            WarmUpResult result = client.warmUp(4);
+            assertTrue(result.isReady());
+            assertEquals(4, result.getConnectionsRequested());
+            assertEquals(4, result.getConnectionsOpened());
+            assertSame(result, client.getWarmUpResult());
+            assertEquals(4, server.connections());
+        }
+    }
+
+    @Test
+    public void rendersReuseWarmedConnections() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            ForgeClient client = new ForgeClient(server.url());
+            client.warmUp(4);
+            for (int i = 0; i < 8; i++) {
+                client.renderHtml("page " + i).send();
+            }
+            assertEquals(4, server.connections());
+        }
+    }
+
+    @Test
+    public void builderWarmsUpBeforeReturning() throws Exception {
+        try (StubForgeServer server = new StubForgeServer()) {
+            ForgeClient client = ForgeClient.builder(server.url()).warmUp(2).build();
+            assertTrue(client.getWarmUpResult().isReady());
+        }
+    }
+
+    @Test
+    public void unreachableServerIsNotReady() {
+        ForgeClient client = new ForgeClient("http://127.0.0.1:9", Duration.ofSeconds(2));
+        WarmUpResult result = client.warmUp(2);
+        assertFalse(result.isReady());
+        assertEquals(0, result.getConnectionsOpened());
+    }
+}